@@ -0,0 +1,33 @@
+package app.caches;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One number for the state of the whole catalog (resources, contributors and likes).
+ * Every mutation bumps it, so "same version" means "same response" and conditional GETs can be answered
+ * without a query. It starts at the boot time in millis, so ETags handed out before a restart never match again.
+ */
+public class CatalogVersion {
+    private static CatalogVersion instance;
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    private CatalogVersion() {
+
+    }
+
+    public static synchronized CatalogVersion getInstance() {
+        if (instance == null) {
+            instance = new CatalogVersion();
+        }
+        return instance;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+}
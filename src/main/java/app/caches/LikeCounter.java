@@ -0,0 +1,185 @@
+package app.caches;
+
+import app.daos.ResourceDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind buffer for the denormalized resource.like_count column.
+ * Likes and unlikes only touch an in-memory delta per learning id (ConcurrentHashMap locks per bin,
+ * so unrelated resources never contend). Deltas are flushed as one batched UPDATE every few seconds,
+ * and a periodic reconcile recomputes the column from user_likes to repair any drift, one id range at a time
+ * so likes only wait for the range being recounted, never for the whole table.
+ * Readers add pending(learningId) to the column value, so a like is visible immediately. A flush commits the column
+ * and takes the flushed deltas out of pending while readers are held off, so no reader ever counts a like twice.
+ */
+public class LikeCounter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LikeCounter.class);
+    private static final long FLUSH_INTERVAL_SECONDS = 5;
+    private static final long RECONCILE_INTERVAL_MINUTES = 60;
+    private static final long RECONCILE_RANGE = 10_000;
+    private static LikeCounter instance;
+
+    private final ResourceDAO resourceDAO;
+    private final ConcurrentHashMap<Integer, Integer> pending = new ConcurrentHashMap<>();
+    private final List<FlushListener> listeners = new CopyOnWriteArrayList<>();
+    //Like writes hold the read side, reconcile holds the write side so no like slips between its flush and recount
+    private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+    //pending() holds the read side, a flush holds the write side from its UPDATE until the deltas are subtracted
+    private final ReentrantReadWriteLock visibility = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "like-counter-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //For in-memory views that hold like_count values and must follow the column as it is written
+    public interface FlushListener {
+        void flushed(Integer learningId, int delta);
+
+        void reconciled();
+    }
+
+    private LikeCounter(ResourceDAO resourceDAO) {
+        this.resourceDAO = resourceDAO;
+    }
+
+    public static synchronized LikeCounter getInstance(ResourceDAO resourceDAO) {
+        if (instance == null) {
+            instance = new LikeCounter(resourceDAO);
+            instance.start();
+        }
+        return instance;
+    }
+
+    private void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly, 0, RECONCILE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushQuietly, "like-counter-shutdown"));
+    }
+
+    //WRITE
+
+    /**
+     * Runs a like/unlike transaction. The transaction and the matching increment()/decrement()
+     * must both happen inside the action, so a reconcile never sees one without the other.
+     */
+    public <T> T recording(Supplier<T> action) {
+        gate.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            gate.readLock().unlock();
+        }
+    }
+
+    public void addListener(FlushListener listener) {
+        listeners.add(listener);
+    }
+
+    public void increment(Integer learningId) {
+        pending.merge(learningId, 1, Integer::sum);
+    }
+
+    public void decrement(Integer learningId) {
+        pending.merge(learningId, -1, Integer::sum);
+    }
+
+    //READ
+    public int pending(Integer learningId) {
+        if (learningId == null) {
+            return 0;
+        }
+        visibility.readLock().lock();
+        try {
+            return pending.getOrDefault(learningId, 0);
+        } finally {
+            visibility.readLock().unlock();
+        }
+    }
+
+    //FLUSH
+    public synchronized void flush() {
+        Map<Integer, Integer> snapshot = new HashMap<>();
+        pending.forEach((learningId, delta) -> {
+            if (delta != 0) {
+                snapshot.put(learningId, delta);
+            }
+        });
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        //A reader that saw the committed column before the subtraction would count the flushed likes twice
+        ResourceCache resourceCache = ResourceCache.getInstance();
+        visibility.writeLock().lock();
+        try {
+            resourceDAO.applyLikeDeltas(snapshot);
+
+            //Subtract only what was written, likes that arrived during the flush stay pending
+            snapshot.forEach((learningId, flushed) -> {
+                pending.computeIfPresent(learningId, (key, delta) -> delta - flushed == 0 ? null : delta - flushed);
+                resourceCache.invalidateLearningId(learningId);
+            });
+        } finally {
+            visibility.writeLock().unlock();
+        }
+        snapshot.forEach((learningId, flushed) -> listeners.forEach(listener -> listener.flushed(learningId, flushed)));
+    }
+
+    public void reconcile() {
+        Long maxId = resourceDAO.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        int changed = 0;
+        for (long fromId = 0; fromId <= maxId; fromId += RECONCILE_RANGE) {
+            changed += reconcile(fromId, fromId + RECONCILE_RANGE);
+        }
+        if (changed > 0) {
+            LOGGER.warn("Like count reconcile corrected {} resources", changed);
+            ResourceCache.getInstance().invalidateAll();
+            CatalogVersion.getInstance().bump();
+            listeners.forEach(FlushListener::reconciled);
+        }
+    }
+
+    //Nothing may be pending while a range is recounted, so likes wait for the flush and this one range
+    private int reconcile(long fromId, long toId) {
+        gate.writeLock().lock();
+        try {
+            flush();
+            return resourceDAO.reconcileLikeCounts(fromId, toId);
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    //Scheduled tasks must not throw, otherwise the executor silently stops running them
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not flush like counts, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not reconcile like counts, will retry: {}", e.getMessage());
+        }
+    }
+}
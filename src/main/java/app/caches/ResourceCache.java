@@ -0,0 +1,159 @@
+package app.caches;
+
+import app.dtos.cachedtos.CacheStatsDTO;
+import app.dtos.resourcedtos.SimpleResourceDTO;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of converted resources, keyed by resource id with a learning id lookup on the side.
+ * Entries are kept in LRU order, but a new entry only replaces the LRU victim if it has been requested
+ * more often (TinyLFU admission), so one-off scans cannot flush the popular resources out of the cache.
+ * The cached DTOs are user neutral: isLikedByCurrentUser is always null.
+ */
+public class ResourceCache {
+    private static final int DEFAULT_CAPACITY = 1_000;
+    private static ResourceCache instance;
+
+    private final int capacity;
+    private final LinkedHashMap<Long, SimpleResourceDTO> byId;
+    private final Map<Integer, Long> idByLearningId = new HashMap<>();
+    private final FrequencySketch sketch;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    //Bumped on every invalidation, readers pass the value they saw before loading to put()
+    private long stamp;
+
+    private ResourceCache(int capacity) {
+        this.capacity = capacity;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true);
+        this.sketch = new FrequencySketch(capacity);
+    }
+
+    public static synchronized ResourceCache getInstance() {
+        if (instance == null) {
+            instance = new ResourceCache(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    //READ
+    public synchronized SimpleResourceDTO getById(Long id) {
+        SimpleResourceDTO cached = byId.get(id);
+        return recordAccess(id, cached);
+    }
+
+    public synchronized SimpleResourceDTO getByLearningId(Integer learningId) {
+        Long id = idByLearningId.get(learningId);
+        SimpleResourceDTO cached = id == null ? null : byId.get(id);
+        return recordAccess(id, cached);
+    }
+
+    private SimpleResourceDTO recordAccess(Long id, SimpleResourceDTO cached) {
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        sketch.increment(id);
+        hits.incrementAndGet();
+        return cached;
+    }
+
+    /**
+     * Must be read before the database is queried on a miss, and handed to put() afterward.
+     * That way a value loaded before an invalidation is never cached.
+     */
+    public synchronized long stamp() {
+        return stamp;
+    }
+
+    //WRITE
+    public synchronized void put(Long id, SimpleResourceDTO dto, long loadedAtStamp) {
+        if (id == null || dto == null || loadedAtStamp != stamp) {
+            return;
+        }
+        sketch.increment(id);
+        if (byId.containsKey(id)) {
+            store(id, dto);
+            return;
+        }
+        if (byId.size() >= capacity) {
+            Map.Entry<Long, SimpleResourceDTO> victim = byId.entrySet().iterator().next();
+            if (sketch.frequency(id) <= sketch.frequency(victim.getKey())) {
+                rejections.incrementAndGet();
+                return;
+            }
+            remove(victim.getKey());
+            evictions.incrementAndGet();
+        }
+        store(id, dto);
+    }
+
+    private void store(Long id, SimpleResourceDTO dto) {
+        byId.put(id, dto);
+        if (dto.learningId() != null) {
+            idByLearningId.put(dto.learningId(), id);
+        }
+    }
+
+    public synchronized void invalidate(Long id) {
+        stamp++;
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    public synchronized void invalidateLearningId(Integer learningId) {
+        stamp++;
+        Long id = idByLearningId.get(learningId);
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        stamp++;
+        byId.clear();
+        idByLearningId.clear();
+    }
+
+    //Contributor data is embedded in every cached resource, so a changed contributor drops all of theirs
+    public synchronized void invalidateContributor(Long contributorId) {
+        stamp++;
+        if (contributorId == null) {
+            return;
+        }
+        Iterator<Map.Entry<Long, SimpleResourceDTO>> iterator = byId.entrySet().iterator();
+        while (iterator.hasNext()) {
+            SimpleResourceDTO dto = iterator.next().getValue();
+            if (dto.simpleContributorDTO() != null && contributorId.equals(dto.simpleContributorDTO().contributorId())) {
+                idByLearningId.remove(dto.learningId());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void remove(Long id) {
+        SimpleResourceDTO removed = byId.remove(id);
+        if (removed != null && removed.learningId() != null) {
+            idByLearningId.remove(removed.learningId());
+        }
+    }
+
+    //STATS
+    public synchronized CacheStatsDTO getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long requests = hitCount + missCount;
+        double hitRate = requests == 0 ? 0.0 : (double) hitCount / requests;
+        return new CacheStatsDTO(hitCount, missCount, evictions.get(), rejections.get(), byId.size(), capacity, hitRate);
+    }
+}
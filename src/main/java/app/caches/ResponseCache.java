@@ -0,0 +1,130 @@
+package app.caches;
+
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Finished JSON bodies of hot, anonymous read endpoints, kept both as plain and as gzipped bytes.
+ * An entry is only valid for the CatalogVersion it was built under, so every write invalidates it without bookkeeping.
+ * A hit skips the service, Jackson and compression: the stored bytes are written as they are.
+ */
+public class ResponseCache {
+    private static final int MAX_ENTRIES = 256;
+    private static ResponseCache instance;
+
+    private final CatalogVersion catalogVersion = CatalogVersion.getInstance();
+    private final Map<String, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private record CachedResponse(long version, byte[] json, byte[] gzip) {
+    }
+
+    private ResponseCache() {
+
+    }
+
+    public static synchronized ResponseCache getInstance() {
+        if (instance == null) {
+            instance = new ResponseCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Writes the response for this path and query string from the cache, building it with the supplier on a miss.
+     * Responses for logged-in users contain isLikedByCurrentUser, those are never cached.
+     */
+    public void respond(Context ctx, Supplier<?> body) {
+        if (ctx.attribute("user") != null) {
+            ctx.status(200).json(body.get());
+            return;
+        }
+        String key = ctx.path() + "?" + (ctx.queryString() == null ? "" : ctx.queryString());
+        //Read before building, so a write that lands meanwhile makes the entry stale instead of wrongly current
+        long version = catalogVersion.current();
+        CachedResponse cached = get(key, version);
+        if (cached == null) {
+            byte[] json = ctx.jsonMapper().toJsonString(body.get(), Object.class).getBytes(StandardCharsets.UTF_8);
+            cached = new CachedResponse(version, json, gzip(json));
+            put(key, cached);
+        }
+
+        ctx.status(200).contentType(ContentType.APPLICATION_JSON);
+        ctx.res().addHeader("Vary", "Accept-Encoding");
+        if (acceptsGzip(ctx.header("Accept-Encoding"))) {
+            //With Content-Encoding already set Javalin does not compress the body a second time
+            ctx.header("Content-Encoding", "gzip");
+            ctx.result(cached.gzip());
+        } else {
+            ctx.result(cached.json());
+        }
+    }
+
+    private synchronized CachedResponse get(String key, long version) {
+        CachedResponse cached = responses.get(key);
+        if (cached == null || cached.version() != version) {
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized void put(String key, CachedResponse response) {
+        CachedResponse existing = responses.get(key);
+        if (existing == null || existing.version() <= response.version()) {
+            responses.put(key, response);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compress the cached response", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    //Accept-Encoding: gzip, deflate, br  or with weights like gzip;q=0.8, a q of 0 means "not acceptable"
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && isZero(parameter.substring(2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZero(String weight) {
+        try {
+            return Double.parseDouble(weight) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -98,6 +98,10 @@ public class HibernateConfig {
         props.put("hibernate.show_sql", "true");
         props.put("hibernate.format_sql", "true");
         props.put("hibernate.use_sql_comments", "true");
+        //Bulk writes go out in JDBC batches of this size, set JDBC_BATCH_SIZE to tune it
+        props.put("hibernate.jdbc.batch_size", System.getenv().getOrDefault("JDBC_BATCH_SIZE", "50"));
+        props.put("hibernate.order_inserts", "true");
+        props.put("hibernate.order_updates", "true");
         return props;
     }
 
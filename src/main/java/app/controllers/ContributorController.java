@@ -1,10 +1,11 @@
 package app.controllers;
 
+import app.caches.ResponseCache;
 import app.dtos.contributordtos.ContributorIdDTO;
 import app.dtos.contributordtos.ContributorNameDTO;
-import app.dtos.contributordtos.GitHubScreenNameListsDTO;
 import app.dtos.contributordtos.ProfileDTO;
 import app.services.ContributorService;
+import app.services.ResourceService;
 import dk.bugelhartmann.UserDTO;
 import io.javalin.http.Context;
 import org.slf4j.Logger;
@@ -15,9 +16,28 @@ import java.util.Map;
 public class ContributorController {
     private final Logger LOGGER = LoggerFactory.getLogger(ContributorController.class);
     private final ContributorService contributorService;
+    private final ResourceService resourceService;
+    private final ResponseCache RESPONSE_CACHE = ResponseCache.getInstance();
 
-    public ContributorController(ContributorService contributorService) {
+    public ContributorController(ContributorService contributorService, ResourceService resourceService) {
         this.contributorService = contributorService;
+        this.resourceService = resourceService;
+    }
+
+    private String currentUsername(Context ctx) {
+        UserDTO userDTO = ctx.attribute("user");
+        return userDTO != null ? userDTO.getUsername() : null;
+    }
+
+    private int pageQueryParam(Context ctx) {
+        String pageParam = ctx.queryParam("page");
+        return pageParam != null ? Integer.parseInt(pageParam) : 0;
+    }
+
+    private int limitQueryParam(Context ctx) {
+        String limitParam = ctx.queryParam("limit");
+        int limit = limitParam != null ? Integer.parseInt(limitParam) : 20;
+        return Math.min(limit, 100); // Cap at 100 to prevent abuse
     }
 
     //TODO: GET /contributors <--> supports query params ?id= / ?name=
@@ -47,16 +67,43 @@ public class ContributorController {
             return;
         }
 
-        //If non path params are set it will return all contributors
-        GitHubScreenNameListsDTO gitHubScreenNameListsDTO = contributorService.getAllContributors();
-        ctx.status(200).json(gitHubScreenNameListsDTO);
+        //If non path params are set it will return a page of contributor summaries
+        int page = pageQueryParam(ctx);
+        int limit = limitQueryParam(ctx);
+        RESPONSE_CACHE.respond(ctx, () -> contributorService.getAllContributors(page, limit));
     }
 
 
     //TODO: GET /contributors/contributions
     public void contributorsByMostContributions(Context ctx){
-        GitHubScreenNameListsDTO gitHubScreenNameListsDTO = contributorService.sortByMostContributions();
-        ctx.status(200).json(gitHubScreenNameListsDTO);
+        int page = pageQueryParam(ctx);
+        int limit = limitQueryParam(ctx);
+        RESPONSE_CACHE.respond(ctx, () -> contributorService.sortByMostContributions(page, limit));
+    }
+
+
+    //TODO: GET /contributors/leaderboard
+    public void leaderboard(Context ctx){
+        int page = pageQueryParam(ctx);
+        int limit = limitQueryParam(ctx);
+        ctx.status(200).json(contributorService.getLeaderboard(page, limit));
+    }
+
+
+    //TODO: GET /contributors/leaderboard/{name}
+    public void leaderboardRank(Context ctx){
+        String name = ctx.pathParam("name");
+        ctx.status(200).json(contributorService.getLeaderboardRank(new ContributorNameDTO(name)));
+    }
+
+
+    //TODO: GET /contributors/{name}/resources
+    public void resourcesOfAContributor(Context ctx){
+        String name = ctx.pathParam("name");
+        int page = pageQueryParam(ctx);
+        int limit = limitQueryParam(ctx);
+        RESPONSE_CACHE.respond(ctx, () -> resourceService.findByContributorPaginated(
+                new ContributorNameDTO(name), page, limit, currentUsername(ctx)));
     }
 
 
@@ -1,36 +1,72 @@
 package app.controllers;
 
+import app.caches.ResponseCache;
+import app.dtos.CursorPageDTO;
 import app.dtos.PageDTO;
+import app.dtos.SliceDTO;
+import app.dtos.SuggestionDTO;
+import app.dtos.cachedtos.CacheStatsDTO;
 import app.dtos.categorydtos.SingleFormatCatDTO;
 import app.dtos.categorydtos.SingleSubCategoryDTO;
 import app.dtos.contributordtos.ContributorNameDTO;
+import app.dtos.resourcedtos.ImportResultDTO;
 import app.dtos.resourcedtos.LearningIdDTO;
+import app.dtos.resourcedtos.ResourceExportDTO;
 import app.dtos.resourcedtos.ResourceIdDTO;
 import app.dtos.resourcedtos.ResourceKeywordDTO;
+import app.dtos.resourcedtos.ResourceQueryDTO;
 import app.dtos.resourcedtos.ResourceTitleDTO;
 import app.dtos.resourcedtos.SimpleResourceDTO;
 import app.services.ContributorService;
 import app.services.ResourceService;
 import app.enums.FormatCategory;
+import app.enums.ResourceSort;
 import app.enums.SubCategory;
+import app.indexes.SuggestionTrie;
+import app.utils.Utils;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import dk.bugelhartmann.UserDTO;
 import io.javalin.http.Context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ResourceController {
     private final Logger LOGGER = LoggerFactory.getLogger(ResourceController.class);
     private final ResourceService resourceService;
     private final ContributorService contributorService;
+    private final ResponseCache RESPONSE_CACHE = ResponseCache.getInstance();
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_TRENDING_LIMIT = 20;
+    private static final int DEFAULT_RELATED_LIMIT = 10;
+    private final ObjectWriter EXPORT_LINE_WRITER = new Utils().getObjectMapper().writerFor(ResourceExportDTO.class);
 
     public ResourceController(ResourceService resourceService, ContributorService contributorService) {
         this.resourceService = resourceService;
         this.contributorService = contributorService;
     }
 
+    //HELPER METHODS
+    private String currentUsername(Context ctx) {
+        UserDTO userDTO = ctx.attribute("user");
+        return userDTO != null ? userDTO.getUsername() : null;
+    }
+
 
     //TODO: POST resources/ (only admin or user/contributor)
     public void createResource(Context ctx) {
@@ -49,6 +85,17 @@ public class ResourceController {
         ctx.status(201).json(responseResource);
     }
 
+    //TODO: POST resources/bulk
+    public void createResources(Context ctx) {
+        List<SimpleResourceDTO> simpleResourceDTOs = Arrays.asList(ctx.bodyAsClass(SimpleResourceDTO[].class));
+
+        UserDTO userDTO = ctx.attribute("user");
+        Long authenticatedContributorId = contributorService.getContributorIdForUser(userDTO);
+
+        List<SimpleResourceDTO> responseResources = resourceService.createResources(simpleResourceDTOs, authenticatedContributorId);
+        ctx.status(201).json(responseResources);
+    }
+
     //TODO: GET resources/{id}
     public void getResourceById(Context ctx){
         Long id = Long.valueOf(ctx.pathParam("id"));
@@ -58,6 +105,19 @@ public class ResourceController {
         ctx.status(200).json(resource);
     }
 
+    //TODO: GET resources/id/{id}/related
+    public void getRelatedResources(Context ctx){
+        Long id = Long.valueOf(ctx.pathParam("id"));
+        String limitParam = ctx.queryParam("limit");
+        int limit;
+        try {
+            limit = limitParam != null ? Integer.parseInt(limitParam) : DEFAULT_RELATED_LIMIT;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number");
+        }
+        RESPONSE_CACHE.respond(ctx, () -> resourceService.getRelatedResources(id, limit, currentUsername(ctx)));
+    }
+
     //TODO: GET resources/{learning_id}
     public void getResourceByLearningId(Context ctx){
         Integer learningId = Integer.valueOf(ctx.pathParam("learning_id"));
@@ -65,33 +125,74 @@ public class ResourceController {
         ctx.status(200).json(resource);
     }
 
-    //TODO: GET resources/  <-- retrieve all, supports pagination with ?page=0&limit=20
+    //TODO: GET resources/  <-- retrieve all, supports pagination with ?page=0&limit=20 or ?cursor=...&limit=20
     public void getAllResources(Context ctx){
         String pageParam = ctx.queryParam("page");
         String limitParam = ctx.queryParam("limit");
+        String cursorParam = ctx.queryParam("cursor");
+        ResourceSort sort = sortQueryParam(ctx);
 
-        if (pageParam != null && limitParam != null) {
+        //A sort is always served with cursor pagination
+        if (cursorParam != null || sort != null || (limitParam != null && pageParam == null)) {
+            CursorPageDTO<SimpleResourceDTO> response = resourceService.getAllResourcesByCursor(cursorParam, cursorLimitQueryParam(ctx), sort, currentUsername(ctx));
+            ctx.status(200).json(response);
+        } else if (pageParam != null && limitParam != null) {
             int page = Integer.parseInt(pageParam);
             int limit = Integer.parseInt(limitParam);
             limit = Math.min(limit, 100); // Cap at 100 to prevent abuse
-            PageDTO<SimpleResourceDTO> response = resourceService.getAllResourcesPaginated(page, limit);
+            PageDTO<SimpleResourceDTO> response = resourceService.getAllResourcesPaginated(page, limit, currentUsername(ctx));
             ctx.status(200).json(response);
         } else {
-            List<SimpleResourceDTO> response = resourceService.getAllResources();
-            ctx.status(200).json(response);
+            //The full catalog is written element by element instead of being built up as one list and one string
+            ctx.status(200);
+            resourceService.streamAllResources(currentUsername(ctx), ctx::writeJsonStream);
         }
     }
 
     //TODO: GET resources/newest
     public void getNewestResources(Context ctx){
-        List<SimpleResourceDTO> response = resourceService.getNewestResources();
-        ctx.status(200).json(response);
+        RESPONSE_CACHE.respond(ctx, () -> resourceService.getNewestResources(
+                formatQueryParam(ctx), subQueryParam(ctx), currentUsername(ctx)));
     }
 
     //TODO: GET resources/newest
     public void getRecentlyUpdatedResources(Context ctx){
-        List<SimpleResourceDTO> response = resourceService.getRecentlyUpdatedResources();
-        ctx.status(200).json(response);
+        RESPONSE_CACHE.respond(ctx, () -> resourceService.getRecentlyUpdatedResources(
+                formatQueryParam(ctx), subQueryParam(ctx), currentUsername(ctx)));
+    }
+
+    //TODO: GET resources/trending
+    public void getTrendingResources(Context ctx){
+        String limitParam = ctx.queryParam("limit");
+        int limit;
+        try {
+            limit = limitParam != null ? Integer.parseInt(limitParam) : DEFAULT_TRENDING_LIMIT;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number");
+        }
+        RESPONSE_CACHE.respond(ctx, () -> resourceService.getTrendingResources(
+                formatQueryParam(ctx), subQueryParam(ctx), limit, currentUsername(ctx)));
+    }
+
+    private FormatCategory formatQueryParam(Context ctx) {
+        String formatCat = ctx.queryParam("format");
+        return formatCat != null ? FormatCategory.valueOf(formatCat.toUpperCase()) : null;
+    }
+
+    private SubCategory subQueryParam(Context ctx) {
+        String subCat = ctx.queryParam("sub");
+        return subCat != null ? SubCategory.valueOf(subCat.toUpperCase()) : null;
+    }
+
+    private ResourceSort sortQueryParam(Context ctx) {
+        String sortParam = ctx.queryParam("sort");
+        return sortParam != null ? ResourceSort.valueOf(sortParam.toUpperCase()) : null;
+    }
+
+    private int cursorLimitQueryParam(Context ctx) {
+        String limitParam = ctx.queryParam("limit");
+        int limit = limitParam != null ? Integer.parseInt(limitParam) : 20;
+        return Math.min(limit, 100); // Cap at 100 to prevent abuse
     }
 
 
@@ -105,10 +206,19 @@ public class ResourceController {
         boolean isAdmin = user != null && user.getRoles().contains("ADMIN");
         Long contributorId = contributorService.getContributorIdForUser(user);
 
+        ResourceSort sort = sortQueryParam(ctx);
+        if (sort != null) {
+            CursorPageDTO<SimpleResourceDTO> page = resourceService.getResourcesInCategoryByLikes(formatCategory, null, sort,
+                    ctx.queryParam("cursor"), cursorLimitQueryParam(ctx), contributorId, isAdmin, currentUsername(ctx));
+            ctx.status(200).json(page);
+            return;
+        }
+
         List<SimpleResourceDTO> response = resourceService.getAllResourcesInFormatCat(
                 new SingleFormatCatDTO(formatCategory),
                 contributorId,
-                isAdmin);
+                isAdmin,
+                currentUsername(ctx));
         ctx.status(200).json(response);
     }
 
@@ -121,32 +231,133 @@ public class ResourceController {
         boolean isAdmin = user != null && user.getRoles().contains("ADMIN");
         Long contributorId = contributorService.getContributorIdForUser(user);
 
+        ResourceSort sort = sortQueryParam(ctx);
+        if (sort != null) {
+            CursorPageDTO<SimpleResourceDTO> page = resourceService.getResourcesInCategoryByLikes(null, subCategory, sort,
+                    ctx.queryParam("cursor"), cursorLimitQueryParam(ctx), contributorId, isAdmin, currentUsername(ctx));
+            ctx.status(200).json(page);
+            return;
+        }
+
         List<SimpleResourceDTO> response = resourceService.getAllResourcesInSubCat(
                 new SingleSubCategoryDTO(subCategory),
                 contributorId,
-                isAdmin);
+                isAdmin,
+                currentUsername(ctx));
         ctx.status(200).json(response);
     }
 
     //TODO: GET resource/{title}
     public void getResourceByTitle(Context ctx){
         String title = ctx.pathParam("title");
-        SimpleResourceDTO resource = resourceService.findByTitle(new ResourceTitleDTO(title));
-        ctx.status(200).json(resource);
+        List<SimpleResourceDTO> resources = resourceService.findByTitle(new ResourceTitleDTO(title), currentUsername(ctx));
+        ctx.status(200).json(resources);
     }
 
     //TODO: GET resource/{contributor}
     public void getResourcesByContributor(Context ctx){
         String contributorName = ctx.pathParam("name");
-        List<SimpleResourceDTO> resources = resourceService.findByContributor(new ContributorNameDTO(contributorName));
+        List<SimpleResourceDTO> resources = resourceService.findByContributor(new ContributorNameDTO(contributorName), currentUsername(ctx));
         ctx.status(200).json(resources);
     }
 
-    //TODO: GET resource/{keyword}
+    //TODO: GET resource/{keyword}  <-- supports cursor pagination with ?cursor=...&limit=20
     public void getResourcesByKeyword(Context ctx){
         String keyword = ctx.pathParam("keyword");
-        List<SimpleResourceDTO> resources = resourceService.findByKeyword(new ResourceKeywordDTO(keyword));
-        ctx.status(200).json(resources);
+        String cursorParam = ctx.queryParam("cursor");
+        String limitParam = ctx.queryParam("limit");
+
+        if (cursorParam != null || limitParam != null) {
+            int limit = limitParam != null ? Integer.parseInt(limitParam) : 20;
+            limit = Math.min(limit, 100); // Cap at 100 to prevent abuse
+            CursorPageDTO<SimpleResourceDTO> response = resourceService.findByKeyword(new ResourceKeywordDTO(keyword), cursorParam, limit, currentUsername(ctx));
+            ctx.status(200).json(response);
+        } else {
+            List<SimpleResourceDTO> resources = resourceService.findByKeyword(new ResourceKeywordDTO(keyword), currentUsername(ctx));
+            ctx.status(200).json(resources);
+        }
+    }
+
+    //TODO: GET resources/filter
+    public void filterResources(Context ctx){
+        Set<FormatCategory> formatCategories = EnumSet.noneOf(FormatCategory.class);
+        for (String formatCat : splitQueryParams(ctx, "format")) {
+            formatCategories.add(FormatCategory.valueOf(formatCat.toUpperCase()));
+        }
+        Set<SubCategory> subCategories = EnumSet.noneOf(SubCategory.class);
+        for (String subCat : splitQueryParams(ctx, "sub")) {
+            subCategories.add(SubCategory.valueOf(subCat.toUpperCase()));
+        }
+        String pageParam = ctx.queryParam("page");
+        String limitParam = ctx.queryParam("limit");
+        int page = pageParam != null ? Integer.parseInt(pageParam) : 0;
+        int limit = limitParam != null ? Integer.parseInt(limitParam) : 20;
+        limit = Math.min(limit, 100); // Cap at 100 to prevent abuse
+
+        PageDTO<SimpleResourceDTO> response = resourceService.filterByCategories(formatCategories, subCategories, page, limit, currentUsername(ctx));
+        ctx.status(200).json(response);
+    }
+
+    //TODO: GET resources/query
+    public void queryResources(Context ctx){
+        Set<FormatCategory> formatCategories = EnumSet.noneOf(FormatCategory.class);
+        for (String formatCat : splitQueryParams(ctx, "formatCategory")) {
+            formatCategories.add(FormatCategory.valueOf(formatCat.toUpperCase()));
+        }
+        Set<SubCategory> subCategories = EnumSet.noneOf(SubCategory.class);
+        for (String subCat : splitQueryParams(ctx, "subCategory")) {
+            subCategories.add(SubCategory.valueOf(subCat.toUpperCase()));
+        }
+        String sortParam = ctx.queryParam("sort");
+        String pageParam = ctx.queryParam("page");
+        String limitParam = ctx.queryParam("limit");
+        int page = pageParam != null ? Integer.parseInt(pageParam) : 0;
+        int limit = limitParam != null ? Integer.parseInt(limitParam) : 20;
+        limit = Math.min(limit, 100); // Cap at 100 to prevent abuse
+
+        ResourceQueryDTO query = new ResourceQueryDTO(
+                formatCategories,
+                subCategories,
+                ctx.queryParam("contributor"),
+                ctx.queryParam("keyword"),
+                parseDateTime(ctx.queryParam("createdAfter")),
+                parseDateTime(ctx.queryParam("createdBefore")),
+                sortParam != null ? ResourceSort.valueOf(sortParam.toUpperCase()) : ResourceSort.NEWEST,
+                page,
+                limit);
+
+        SliceDTO<SimpleResourceDTO> response = resourceService.queryResources(query, currentUsername(ctx));
+        ctx.status(200).json(response);
+    }
+
+    //Accepts 2024-01-15 (start of that day) or 2024-01-15T10:30:00
+    private LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Dates must be written as yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss");
+        }
+    }
+
+    //Accepts both ?format=A,B and ?format=A&format=B
+    private List<String> splitQueryParams(Context ctx, String name) {
+        List<String> values = new ArrayList<>();
+        for (String param : ctx.queryParams(name)) {
+            for (String value : param.split(",")) {
+                if (!value.isBlank()) {
+                    values.add(value.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    //TODO: GET resources/facets
+    public void getFacetCounts(Context ctx) {
+        RESPONSE_CACHE.respond(ctx, resourceService::getFacetCounts);
     }
 
 
@@ -210,6 +421,51 @@ public class ResourceController {
     }
 
 
+    //TODO: GET resources/cache/stats
+    public void getCacheStats(Context ctx) {
+        CacheStatsDTO stats = resourceService.getCacheStats();
+        ctx.status(200).json(stats);
+    }
+
+
+    //TODO: GET resources/suggest?q=jav&limit=5
+    public void suggest(Context ctx) {
+        String query = ctx.queryParam("q");
+        String limitParam = ctx.queryParam("limit");
+        int limit;
+        try {
+            limit = limitParam != null ? Integer.parseInt(limitParam) : SuggestionTrie.TOP_K;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number");
+        }
+        List<SuggestionDTO> suggestions = resourceService.suggest(query, limit);
+        ctx.status(200).json(suggestions);
+    }
+
+    //TODO: GET admin/resources/export  <-- one JSON object per line, written while the rows are read
+    public void exportResources(Context ctx) throws IOException {
+        ctx.status(200).contentType(NDJSON);
+        ctx.header("Content-Disposition", "attachment; filename=\"resources.ndjson\"");
+        try (SequenceWriter lines = EXPORT_LINE_WRITER.withRootValueSeparator("\n").writeValues(ctx.outputStream())) {
+            resourceService.exportResources(resources -> resources.forEach(resource -> {
+                try {
+                    lines.write(resource);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not write the export", e);
+                }
+            }));
+        }
+    }
+
+    //TODO: POST admin/resources/import  <-- the body is read line by line, never as a whole
+    public void importResources(Context ctx) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ctx.bodyInputStream(), StandardCharsets.UTF_8))) {
+            ImportResultDTO result = resourceService.importResources(reader.lines());
+            ctx.status(200).json(result);
+        }
+    }
+
+
     //TODO: POST resources/{id}/like
     public void likeResource(Context ctx) {
         Long id = Long.valueOf(ctx.pathParam("id"));
@@ -9,7 +9,10 @@ public class ConvertToResourceDTO implements IConverter<Resource, SimpleResource
 
     @Override
     public SimpleResourceDTO convert(Resource source) {
-        return convert(source, 0, null);
+        if (source == null) {
+            return null;
+        }
+        return convert(source, source.getLikeCount() == null ? 0 : source.getLikeCount(), null);
     }
 
     public SimpleResourceDTO convert(Resource source, int likeCount, Boolean isLikedByCurrentUser) {
@@ -1,16 +1,23 @@
 package app.daos;
 
+import app.dtos.contributordtos.ContributorSummaryDTO;
 import app.entities.Contributor;
 import app.exceptions.ApiException;
 import app.exceptions.DatabaseException;
 import jakarta.persistence.*;
 
+import java.util.Collection;
 import java.util.List;
 
 public class ContributorDAO {
     private static EntityManagerFactory emf;
     private static ContributorDAO instance;
     private static final String ENTITY_NAME = Contributor.class.getSimpleName();
+    private static final String SUMMARY_SELECT = "SELECT new app.dtos.contributordtos.ContributorSummaryDTO(" +
+            "c.id, c.githubProfile, c.screenName, c.contributions, " +
+            "(SELECT COUNT(r) FROM Resource r WHERE r.contributor = c), " +
+            "(SELECT COALESCE(SUM(r.likeCount), 0) FROM Resource r WHERE r.contributor = c)) " +
+            "FROM Contributor c ";
 
 
     public static ContributorDAO getInstance(EntityManagerFactory emf){
@@ -38,31 +45,50 @@ public class ContributorDAO {
         }
     }
 
-    public List<Contributor> retrieveAll() {
+    /**
+     * One page of contributor summaries. The resource count and like total are correlated subqueries instead of a
+     * join, so they are only computed for the rows on the page (through idx_resource_contributor_created_at_id)
+     * and no resource is ever loaded.
+     */
+    private List<ContributorSummaryDTO> findSummaries(String orderBy, int page, int limit) {
         try(EntityManager em = emf.createEntityManager()){
-            TypedQuery<Contributor> entities = em.createQuery(
-                    "SELECT DISTINCT c " +
-                            "FROM Contributor c " +
-                            "LEFT JOIN FETCH c.resources " +
-                            "ORDER BY COALESCE(c.githubProfile, c.screenName) " +
-                            "DESC ",
-                    Contributor.class);
-
-            return entities.getResultList();
+            return em.createQuery(SUMMARY_SELECT + orderBy, ContributorSummaryDTO.class)
+                    .setFirstResult(page * limit)
+                    .setMaxResults(limit)
+                    .getResultList();
         }
     }
 
+    public List<ContributorSummaryDTO> findSummariesByName(int page, int limit) {
+        return findSummaries("ORDER BY COALESCE(c.githubProfile, c.screenName) DESC, c.id DESC", page, limit);
+    }
+
+    //Order is not guaranteed, the caller orders them by its ranking
+    public List<ContributorSummaryDTO> findSummariesByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        try(EntityManager em = emf.createEntityManager()){
+            return em.createQuery(SUMMARY_SELECT + "WHERE c.id IN :ids", ContributorSummaryDTO.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+        }
+    }
 
-    public List<Contributor> findByMostContributions(){
+    public long countAll() {
         try(EntityManager em = emf.createEntityManager()){
-            TypedQuery<Contributor> entities = em.createQuery(
-                    "SELECT DISTINCT c " +
-                            "FROM Contributor c " +
-                            "LEFT JOIN FETCH c.resources " +
-                            "ORDER BY c.contributions DESC ", Contributor.class);
+            return em.createQuery("SELECT COUNT(c) FROM Contributor c", Long.class)
+                    .getSingleResult();
+        }
+    }
 
-            //Must use List instead of Set because list preserves order integrity
-            return entities.getResultList();
+
+    //Only the names and contributions, for seeding the SuggestionTrie without loading every contributor's resources
+    public List<Object[]> findAllNames() {
+        try(EntityManager em = emf.createEntityManager()){
+            return em.createQuery(
+                            "SELECT c.id, c.githubProfile, c.screenName, c.contributions FROM Contributor c", Object[].class)
+                    .getResultList();
         }
     }
 
@@ -114,13 +140,17 @@ public class ContributorDAO {
         try(EntityManager em = emf.createEntityManager()) {
             em.getTransaction().begin();
             try {
-                em.merge(entity);
+                Contributor merged = em.merge(entity);
                 em.getTransaction().commit();
-                return entity;
+                return merged;
             } catch (RuntimeException e) {
                 if(em.getTransaction().isActive()){
                     em.getTransaction().rollback();
                 }
+                //Every resource create and delete raises the version, the merged copy is then stale
+                if (e instanceof OptimisticLockException || e.getCause() instanceof OptimisticLockException) {
+                    throw new ApiException(409, "The " + ENTITY_NAME + " entity was changed by someone else, reload it and try again");
+                }
                 throw new DatabaseException(500, "Could not update the " + ENTITY_NAME + " entity");
             }
         }
@@ -0,0 +1,107 @@
+package app.daos;
+
+import app.exceptions.DatabaseException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out resource learning ids from blocks reserved in memory.
+ * resource_learning_id_seq is incremented by the block size, so one nextval returning n reserves n - blockSize + 1 .. n.
+ * The block size is read from the sequence itself, which keeps this safe even while the sequence still increments by 1.
+ */
+public class LearningIdAllocator {
+    private static final String SEQUENCE_NAME = "resource_learning_id_seq";
+    private static EntityManagerFactory emf;
+    private static LearningIdAllocator instance;
+
+    private int blockSize;
+    private long next;
+    private long last = -1;
+
+    public static synchronized LearningIdAllocator getInstance(EntityManagerFactory emf) {
+        if (instance == null) {
+            instance = new LearningIdAllocator();
+            LearningIdAllocator.emf = emf;
+        }
+        return instance;
+    }
+
+    public synchronized int next() {
+        return next(1).get(0);
+    }
+
+    //Takes what is left of the current block first, then reserves every extra block it needs in one query
+    public synchronized List<Integer> next(int count) {
+        List<Integer> learningIds = new ArrayList<>(count);
+        while (learningIds.size() < count && next <= last) {
+            learningIds.add(Math.toIntExact(next++));
+        }
+        if (learningIds.size() == count) {
+            return learningIds;
+        }
+
+        int missing = count - learningIds.size();
+        int size = blockSize();
+        int blocks = (missing + size - 1) / size;
+        for (long hi : reserveBlocks(blocks)) {
+            next = hi - size + 1;
+            last = hi;
+            while (learningIds.size() < count && next <= last) {
+                learningIds.add(Math.toIntExact(next++));
+            }
+        }
+        return learningIds;
+    }
+
+    /**
+     * For imports that bring their own learning ids: moves the sequence past the given id and drops the current block
+     * when it reaches that far, so no id up to learningId is handed out after this returns.
+     */
+    public synchronized void skipPast(int learningId) {
+        try (EntityManager em = emf.createEntityManager()) {
+            em.createNativeQuery(
+                            "SELECT setval('" + SEQUENCE_NAME + "', GREATEST(:learningId, " +
+                                    "(SELECT last_value FROM " + SEQUENCE_NAME + ")))")
+                    .setParameter("learningId", learningId)
+                    .getSingleResult();
+        } catch (RuntimeException e) {
+            throw new DatabaseException(500, "Could not move " + SEQUENCE_NAME + " past the imported learning ids");
+        }
+        if (learningId >= next) {
+            last = -1;
+        }
+    }
+
+    private int blockSize() {
+        if (blockSize == 0) {
+            try (EntityManager em = emf.createEntityManager()) {
+                Number incrementBy = (Number) em.createNativeQuery(
+                                "SELECT increment_by FROM pg_sequences WHERE sequencename = '" + SEQUENCE_NAME + "'")
+                        .getSingleResult();
+                blockSize = Math.max(1, incrementBy.intValue());
+            } catch (RuntimeException e) {
+                throw new DatabaseException(500, "Could not read the increment of " + SEQUENCE_NAME);
+            }
+        }
+        return blockSize;
+    }
+
+    private List<Long> reserveBlocks(int blocks) {
+        try (EntityManager em = emf.createEntityManager()) {
+            List<?> values = em.createNativeQuery(
+                            "SELECT nextval('" + SEQUENCE_NAME + "') FROM generate_series(1, :blocks)")
+                    .setParameter("blocks", blocks)
+                    .getResultList();
+            List<Long> his = new ArrayList<>(values.size());
+            for (Object value : values) {
+                his.add(((Number) value).longValue());
+            }
+            return his;
+        } catch (RuntimeException e) {
+            throw new DatabaseException(500, "Could not reserve learning ids from " + SEQUENCE_NAME);
+        }
+    }
+}
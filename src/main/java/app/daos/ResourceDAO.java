@@ -1,33 +1,65 @@
 package app.daos;
 
+import app.dtos.resourcedtos.ResourceQueryDTO;
+import app.dtos.resourcedtos.ResourceRowDTO;
+import app.entities.Contributor;
 import app.entities.Resource;
 import app.enums.FormatCategory;
+import app.enums.ResourceSort;
 import app.enums.SubCategory;
 import app.exceptions.ApiException;
 import app.exceptions.DatabaseException;
 import jakarta.persistence.*;
-
+import jakarta.persistence.criteria.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.query.QueryProducer;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 public class ResourceDAO implements ICRUD<Resource> {
     private static EntityManagerFactory emf;
     private static ResourceDAO instance;
+    private static LearningIdAllocator learningIdAllocator;
     private static final String ENTITY_NAME = Resource.class.getSimpleName();
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final String NORMALIZED_LINK_INDEX = "uq_resource_normalized_link";
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    //Read-only list queries select straight into ResourceRowDTO: no managed entities, no snapshots, one join for the contributor
+    private static final String ROW_SELECT = "SELECT new app.dtos.resourcedtos.ResourceRowDTO(" +
+            "r.id, r.learningId, r.learningResourceLink, r.title, r.formatCategory, r.subCategory, r.description, " +
+            "c.id, c.githubProfile, c.screenName, c.contributions, r.createdAt, r.modifiedAt, r.likeCount) " +
+            "FROM Resource r LEFT JOIN r.contributor c ";
 
 
     public static ResourceDAO getInstance(EntityManagerFactory emf){
         if(null == instance){
             instance = new ResourceDAO();
             ResourceDAO.emf = emf;
+            learningIdAllocator = LearningIdAllocator.getInstance(emf);
         }
         return instance;
     }
 
     //CREATE
+
+    //Raises the contributor's contributions in the same transaction, callers must not count the resource themselves
     @Override
     public Resource persist(Resource entity) {
         if (entity == null) {
@@ -37,47 +69,189 @@ public class ResourceDAO implements ICRUD<Resource> {
             em.getTransaction().begin();
             try {
                 if (entity.getLearningId() == null) {
-                    Number nextVal = (Number) em.createNativeQuery("SELECT nextval('resource_learning_id_seq')").getSingleResult();
-                    entity.setLearningId(nextVal.intValue());
+                    entity.setLearningId(learningIdAllocator.next());
                 }
                 em.persist(entity);
+                addContributions(em.unwrap(Session.class), List.of(entity));
                 em.getTransaction().commit();
                 return entity;
             } catch (RuntimeException e) {
                 if (em.getTransaction().isActive()) {
                     em.getTransaction().rollback();
                 }
+                rejectDuplicateLink(e);
                 throw new DatabaseException(500, "Could not persist " +  ENTITY_NAME + " entity");
             }
         }
     }
 
+    /**
+     * Persists the whole list in one transaction, flushed in chunks of hibernate.jdbc.batch_size so every chunk
+     * goes out as JDBC batches and the persistence context is emptied in between.
+     * Each chunk also raises its contributors' contributions with one UPDATE per contributor,
+     * so callers must not count these resources themselves.
+     */
     @Override
     public Set<Resource> persistList(List<Resource> entities) {
         if(entities == null || entities.isEmpty()){
             throw new IllegalArgumentException("List of " + ENTITY_NAME +  " cannot be empty or null");
         }
+        int batchSize = jdbcBatchSize();
         try(EntityManager em = emf.createEntityManager()){
             em.getTransaction().begin();
             try{
-                for(Resource r : entities){
-                    if (r.getLearningId() == null) {
-                        Number nextVal = (Number) em.createNativeQuery("SELECT nextval('resource_learning_id_seq')").getSingleResult();
-                        r.setLearningId(nextVal.intValue());
-                    }
-                    em.persist(r);
+                assignLearningIds(entities);
+                for (int from = 0; from < entities.size(); from += batchSize) {
+                    List<Resource> batch = entities.subList(from, Math.min(from + batchSize, entities.size()));
+                    batch.forEach(em::persist);
+                    addContributions(em.unwrap(Session.class), batch);
+                    em.flush();
+                    em.clear();
                 }
                 em.getTransaction().commit();
-                return new HashSet<>(entities);
+                return new LinkedHashSet<>(entities);
             } catch (RuntimeException e){
                 if(em.getTransaction().isActive()){
                     em.getTransaction().rollback();
                 }
+                rejectDuplicateLink(e);
                 throw new DatabaseException(500, "Failed to persist the list of " + ENTITY_NAME + " entities");
             }
         }    
     }
 
+    //The unique index on normalized_link catches what the duplicate check in ResourceService lets through under a race
+    private void rejectDuplicateLink(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && NORMALIZED_LINK_INDEX.equalsIgnoreCase(violation.getConstraintName())) {
+                throw new ApiException(409, "This link has already been shared as another resource");
+            }
+        }
+    }
+
+    //At most one round trip for all missing learning ids instead of a nextval per resource
+    private void assignLearningIds(List<Resource> entities) {
+        List<Resource> missing = entities.stream().filter(r -> r.getLearningId() == null).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<Integer> learningIds = learningIdAllocator.next(missing.size());
+        for (int i = 0; i < missing.size(); i++) {
+            missing.get(i).setLearningId(learningIds.get(i));
+        }
+    }
+
+    //VERSIONED bumps Contributor.version too, so a stale profile update cannot overwrite the new count
+    private void addContributions(QueryProducer queries, List<Resource> batch) {
+        Map<Long, Integer> added = new LinkedHashMap<>();
+        for (Resource resource : batch) {
+            if (resource.getContributor() != null) {
+                added.merge(resource.getContributor().getId(), 1, Integer::sum);
+            }
+        }
+        added.forEach((contributorId, count) -> queries.createMutationQuery(
+                        "UPDATE VERSIONED Contributor c " +
+                                "SET c.contributions = c.contributions + :count " +
+                                "WHERE c.id = :id")
+                .setParameter("count", count)
+                .setParameter("id", contributorId)
+                .executeUpdate());
+    }
+
+    /**
+     * Inserts one chunk of an import through a stateless session: no persistence context, inserts go out as JDBC batches.
+     * Resources whose learning id is already taken (in the table or earlier in the chunk) are skipped,
+     * the returned list holds the ones that were inserted. Contributions are raised like in persistList.
+     */
+    public List<Resource> importBatch(List<Resource> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return List.of();
+        }
+        try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+            session.setJdbcBatchSize(jdbcBatchSize());
+            session.getTransaction().begin();
+            try {
+                List<Resource> fresh = withoutTakenLearningIds(session, entities);
+                fresh.stream()
+                        .map(Resource::getLearningId)
+                        .filter(learningId -> learningId != null)
+                        .max(Integer::compare)
+                        .ifPresent(learningIdAllocator::skipPast);
+                assignLearningIds(fresh);
+                fresh.forEach(Resource::updateLookupKeys);
+
+                //@CreationTimestamp and @UpdateTimestamp overwrite the exported values on insert, they are put back below
+                List<LocalDateTime[]> timestamps = fresh.stream()
+                        .map(resource -> new LocalDateTime[]{resource.getCreatedAt(), resource.getModifiedAt()})
+                        .toList();
+                fresh.forEach(session::insert);
+                addContributions(session, fresh);
+                restoreTimestamps(session, fresh, timestamps);
+
+                session.getTransaction().commit();
+                return fresh;
+            } catch (RuntimeException e) {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+                throw new DatabaseException(500, "Could not import the batch of " + ENTITY_NAME + " entities");
+            }
+        }
+    }
+
+    private List<Resource> withoutTakenLearningIds(StatelessSession session, List<Resource> entities) {
+        List<Integer> learningIds = entities.stream()
+                .map(Resource::getLearningId)
+                .filter(learningId -> learningId != null)
+                .toList();
+        Set<Integer> taken = new HashSet<>();
+        if (!learningIds.isEmpty()) {
+            taken.addAll(session.createSelectionQuery(
+                            "SELECT r.learningId FROM Resource r WHERE r.learningId IN :learningIds", Integer.class)
+                    .setParameter("learningIds", learningIds)
+                    .getResultList());
+        }
+        List<Resource> fresh = new ArrayList<>(entities.size());
+        for (Resource resource : entities) {
+            if (resource.getLearningId() == null || taken.add(resource.getLearningId())) {
+                fresh.add(resource);
+            }
+        }
+        return fresh;
+    }
+
+    private void restoreTimestamps(StatelessSession session, List<Resource> inserted, List<LocalDateTime[]> exported) {
+        //doWork bypasses Hibernate's statement preparer, so the pending insert batch has to be sent first
+        ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE resource SET created_at = ?, modified_at = ? WHERE id = ?")) {
+                for (int i = 0; i < inserted.size(); i++) {
+                    Resource resource = inserted.get(i);
+                    LocalDateTime createdAt = exported.get(i)[0] != null ? exported.get(i)[0] : resource.getCreatedAt();
+                    LocalDateTime modifiedAt = exported.get(i)[1] != null ? exported.get(i)[1] : resource.getModifiedAt();
+                    resource.setCreatedAt(createdAt);
+                    resource.setModifiedAt(modifiedAt);
+                    statement.setTimestamp(1, createdAt == null ? null : Timestamp.valueOf(createdAt));
+                    statement.setTimestamp(2, modifiedAt == null ? null : Timestamp.valueOf(modifiedAt));
+                    statement.setLong(3, resource.getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private int jdbcBatchSize() {
+        Object configured = emf.getProperties().get("hibernate.jdbc.batch_size");
+        try {
+            return configured == null ? DEFAULT_BATCH_SIZE : Math.max(1, Integer.parseInt(configured.toString()));
+        } catch (NumberFormatException e) {
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
     //READ
     @Override
     public Resource findById(Long id) {
@@ -107,49 +281,161 @@ public class ResourceDAO implements ICRUD<Resource> {
         }
     }
 
-    // Get all resources sorted by newest first
-    public List<Resource> retrieveSortAllNewest() {
+    @Override
+    public Set<Resource> retrieveAll() {
         try(EntityManager em = emf.createEntityManager()){
-            return em.createQuery(
-                    "SELECT r FROM Resource r ORDER BY r.createdAt DESC",
-                    Resource.class)
-                    .setMaxResults(100)
-                    .getResultList();
+            TypedQuery<Resource> entities = em.createQuery(
+            "SELECT r " +
+                    "FROM Resource r " +
+                    "ORDER BY r.formatCategory DESC ", Resource.class);
+            return new LinkedHashSet<>(entities.getResultList());
         }
     }
 
-    // Get resources modified recently (e.g., "Recently Updated")
-    public List<Resource> findRecentlyUpdated() {
+    /**
+     * Same rows and order as retrieveAll(), but handed to the consumer one at a time through a forward-only cursor.
+     * The stateless session keeps no persistence context, and the fetch size makes the driver read in chunks,
+     * so memory stays flat no matter how big the table is. The stream is only valid inside the consumer.
+     */
+    public void streamAll(Consumer<Stream<Resource>> consumer) {
+        stream("SELECT r " +
+                "FROM Resource r " +
+                "JOIN FETCH r.contributor " +
+                "ORDER BY r.formatCategory DESC ", Resource.class, consumer);
+    }
+
+    //Only id, title and description per row, for seeding the KeywordIndex without loading entities
+    public void streamAllText(Consumer<Stream<Object[]>> consumer) {
+        stream("SELECT r.id, r.title, r.description FROM Resource r", Object[].class, consumer);
+    }
+
+    //Every resource as a row projection in id order, for the NDJSON export
+    public void streamAllRows(Consumer<Stream<ResourceRowDTO>> consumer) {
+        stream(ROW_SELECT + "ORDER BY r.id", ResourceRowDTO.class, consumer);
+    }
+
+    private <T> void stream(String query, Class<T> resultType, Consumer<Stream<T>> consumer) {
+        try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+            //PostgreSQL only honours the fetch size inside a transaction, otherwise it buffers the whole result
+            session.getTransaction().begin();
+            try (Stream<T> results = session.createSelectionQuery(query, resultType)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .stream()) {
+                consumer.accept(results);
+            } finally {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+            }
+        }
+    }
+
+    //Only id, formatCategory, subCategory and createdAt per row, oldest first, for seeding the in-memory category views
+    public List<Object[]> findAllCategories() {
         try(EntityManager em = emf.createEntityManager()){
             return em.createQuery(
-                            "SELECT r FROM Resource r ORDER BY r.modifiedAt DESC",
-                            Resource.class)
-                    .setMaxResults(100)
+                    "SELECT r.id, r.formatCategory, r.subCategory, r.createdAt FROM Resource r " +
+                            "ORDER BY r.createdAt, r.id", Object[].class)
                     .getResultList();
         }
     }
 
-    @Override
-    public Set<Resource> retrieveAll() {
-        try(EntityManager em = emf.createEntityManager()){
-            TypedQuery<Resource> entities = em.createQuery(
-            "SELECT r " +
-                    "FROM Resource r " +
-                    "ORDER BY r.formatCategory DESC ", Resource.class);
-            return new LinkedHashSet<>(entities.getResultList());
+    //(resource id, score): every like since the cutoff weighs e^((liked at - landmark) / tau), see TrendingIndex
+    public List<Object[]> findDecayedLikeScores(LocalDateTime landmark, double tauSeconds, LocalDateTime since) {
+        try (EntityManager em = emf.createEntityManager()) {
+            List<?> rows = em.createNativeQuery(
+                            "SELECT ul.resource_id, SUM(EXP(EXTRACT(EPOCH FROM (ul.created_at - :landmark)) / :tau)) " +
+                                    "FROM user_likes ul " +
+                                    "WHERE ul.created_at > :since " +
+                                    "GROUP BY ul.resource_id")
+                    .setParameter("landmark", landmark)
+                    .setParameter("tau", tauSeconds)
+                    .setParameter("since", since)
+                    .getResultList();
+            return rows.stream().map(row -> (Object[]) row).toList();
+        } catch (RuntimeException e) {
+            throw new DatabaseException(500, "Could not load like scores for trending resources");
         }
     }
 
-    public List<Resource> retrieveAllPaginated(int page, int limit) {
+    public List<ResourceRowDTO> retrieveAllPaginated(int page, int limit) {
         try(EntityManager em = emf.createEntityManager()){
             return em.createQuery(
-                    "SELECT r FROM Resource r ORDER BY r.createdAt DESC", Resource.class)
+                    ROW_SELECT + "ORDER BY r.createdAt DESC", ResourceRowDTO.class)
                     .setFirstResult(page * limit)
                     .setMaxResults(limit)
                     .getResultList();
         }
     }
 
+    //Keyset pagination: seeks past the last (createdAt, id) instead of skipping rows, so every page costs the same
+    public List<ResourceRowDTO> retrieveAllAfter(LocalDateTime createdAt, Long id, int limit) {
+        try(EntityManager em = emf.createEntityManager()){
+            if (createdAt == null || id == null) {
+                return em.createQuery(
+                                ROW_SELECT + "ORDER BY r.createdAt DESC, r.id DESC", ResourceRowDTO.class)
+                        .setMaxResults(limit)
+                        .getResultList();
+            }
+            return em.createQuery(
+                            ROW_SELECT +
+                                    "WHERE r.createdAt < :createdAt " +
+                                    "OR (r.createdAt = :createdAt AND r.id < :id) " +
+                                    "ORDER BY r.createdAt DESC, r.id DESC", ResourceRowDTO.class)
+                    .setParameter("createdAt", createdAt)
+                    .setParameter("id", id)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+    }
+
+    /**
+     * Keyset pagination over like_count, optionally within one category, served by the idx_resource_*likes* indexes.
+     * Ties are broken by id, or by createdAt and then id when thenNewest is set. Without a last position the first page is returned.
+     * The leading "like_count <= :likeCount" is implied by the OR, it is there so PostgreSQL starts the index scan at the cursor.
+     */
+    public List<ResourceRowDTO> retrieveByLikesAfter(FormatCategory formatCategory, SubCategory subCategory, boolean thenNewest,
+                                                     Integer likeCount, LocalDateTime createdAt, Long id, int limit) {
+        List<String> conditions = new ArrayList<>();
+        if (formatCategory != null) {
+            conditions.add("r.formatCategory = :formatCategory");
+        }
+        if (subCategory != null) {
+            conditions.add("r.subCategory = :subCategory");
+        }
+        boolean seek = likeCount != null && id != null && (!thenNewest || createdAt != null);
+        if (seek) {
+            String afterTie = thenNewest
+                    ? "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id))"
+                    : "r.id < :id";
+            conditions.add("r.likeCount <= :likeCount");
+            conditions.add("(r.likeCount < :likeCount OR (r.likeCount = :likeCount AND " + afterTie + "))");
+        }
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+        String orderBy = thenNewest
+                ? "ORDER BY r.likeCount DESC, r.createdAt DESC, r.id DESC"
+                : "ORDER BY r.likeCount DESC, r.id DESC";
+
+        try(EntityManager em = emf.createEntityManager()){
+            TypedQuery<ResourceRowDTO> query = em.createQuery(ROW_SELECT + where + orderBy, ResourceRowDTO.class)
+                    .setMaxResults(limit);
+            if (formatCategory != null) {
+                query.setParameter("formatCategory", formatCategory);
+            }
+            if (subCategory != null) {
+                query.setParameter("subCategory", subCategory);
+            }
+            if (seek) {
+                query.setParameter("likeCount", likeCount);
+                query.setParameter("id", id);
+                if (thenNewest) {
+                    query.setParameter("createdAt", createdAt);
+                }
+            }
+            return query.getResultList();
+        }
+    }
+
     public long countAll() {
         try(EntityManager em = emf.createEntityManager()){
             return em.createQuery("SELECT COUNT(r) FROM Resource r", Long.class)
@@ -158,88 +444,231 @@ public class ResourceDAO implements ICRUD<Resource> {
     }
 
 
-    public List<Resource> findByFormatCat(FormatCategory formatCategory) {
+    public List<ResourceRowDTO> findByFormatCat(FormatCategory formatCategory) {
         if (formatCategory == null) {
             throw new IllegalArgumentException("FormatCategory cannot be null when searching for " + ENTITY_NAME);
         }
         try(EntityManager em = emf.createEntityManager()){
-            TypedQuery<Resource> entities = em.createQuery(
-            "SELECT r " +
-                    "FROM Resource r " +
+            TypedQuery<ResourceRowDTO> entities = em.createQuery(
+            ROW_SELECT +
                     "WHERE r.formatCategory = :cat " +
-                    "ORDER BY r.subCategory", Resource.class)
+                    "ORDER BY r.subCategory", ResourceRowDTO.class)
                     .setParameter("cat", formatCategory);
 
             return entities.getResultList();
         }
     }
 
-    public List<Resource> findBySubCat(SubCategory subCategory) {
+    public List<ResourceRowDTO> findBySubCat(SubCategory subCategory) {
         if (subCategory == null) {
             throw new IllegalArgumentException("SubCategory cannot be null when searching for " + ENTITY_NAME);
         }
         try(EntityManager em = emf.createEntityManager()){
-            TypedQuery<Resource> entities = em.createQuery(
-                            "SELECT r " +
-                                    "FROM Resource r " +
+            TypedQuery<ResourceRowDTO> entities = em.createQuery(
+                            ROW_SELECT +
                                     "WHERE r.subCategory = :cat " +
-                                    "ORDER BY COALESCE(r.contributor.githubProfile, r.contributor.screenName) ", Resource.class)
+                                    "ORDER BY COALESCE(c.githubProfile, c.screenName) ", ResourceRowDTO.class)
                     .setParameter("cat", subCategory);
 
             return entities.getResultList();
         }
     }
 
-    public Resource findByTitle(String title) {
-        if (title == null) {
-            throw new IllegalArgumentException("Title cannot be null when searching for " + ENTITY_NAME);
+    /**
+     * Compiles whichever criteria are set into one SELECT with only those predicates,
+     * projecting straight into ResourceRowDTO so no entities are hydrated.
+     * Fetches limit + 1 rows, the caller uses the extra row to know if there is a next page.
+     */
+    public List<ResourceRowDTO> query(ResourceQueryDTO queryDTO) {
+        if (queryDTO == null) {
+            throw new IllegalArgumentException("The query cannot be null when searching for " + ENTITY_NAME);
+        }
+        try (EntityManager em = emf.createEntityManager()) {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<ResourceRowDTO> cq = cb.createQuery(ResourceRowDTO.class);
+            Root<Resource> r = cq.from(Resource.class);
+            Join<Resource, Contributor> c = r.join("contributor", JoinType.LEFT);
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (queryDTO.formatCategories() != null && !queryDTO.formatCategories().isEmpty()) {
+                predicates.add(r.get("formatCategory").in(queryDTO.formatCategories()));
+            }
+            if (queryDTO.subCategories() != null && !queryDTO.subCategories().isEmpty()) {
+                predicates.add(r.get("subCategory").in(queryDTO.subCategories()));
+            }
+            if (queryDTO.contributorName() != null && !queryDTO.contributorName().isBlank()) {
+                String name = queryDTO.contributorName().trim().toLowerCase();
+                predicates.add(cb.or(
+                        cb.equal(cb.lower(c.get("githubProfile")), name),
+                        cb.equal(cb.lower(c.get("screenName")), name)));
+            }
+            if (queryDTO.keyword() != null && !queryDTO.keyword().isBlank()) {
+                String pattern = "%" + queryDTO.keyword().toLowerCase().trim() + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(r.get("title")), pattern),
+                        cb.like(cb.lower(r.get("description")), pattern)));
+            }
+            if (queryDTO.createdAfter() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(r.get("createdAt"), queryDTO.createdAfter()));
+            }
+            if (queryDTO.createdBefore() != null) {
+                predicates.add(cb.lessThan(r.get("createdAt"), queryDTO.createdBefore()));
+            }
+
+            cq.select(cb.construct(ResourceRowDTO.class,
+                            r.get("id"), r.get("learningId"), r.get("learningResourceLink"), r.get("title"),
+                            r.get("formatCategory"), r.get("subCategory"), r.get("description"),
+                            c.get("id"), c.get("githubProfile"), c.get("screenName"), c.get("contributions"),
+                            r.get("createdAt"), r.get("modifiedAt"), r.get("likeCount")))
+                    .where(predicates.toArray(new Predicate[0]))
+                    .orderBy(orderFor(cb, r, queryDTO.sort()));
+
+            return em.createQuery(cq)
+                    .setFirstResult(queryDTO.page() * queryDTO.limit())
+                    .setMaxResults(queryDTO.limit() + 1)
+                    .getResultList();
+        }
+    }
+
+    //The id is always the last sort key, so rows with equal values keep a stable order across pages
+    private List<Order> orderFor(CriteriaBuilder cb, Root<Resource> r, ResourceSort sort) {
+        return switch (sort == null ? ResourceSort.NEWEST : sort) {
+            case NEWEST -> List.of(cb.desc(r.get("createdAt")), cb.desc(r.get("id")));
+            case OLDEST -> List.of(cb.asc(r.get("createdAt")), cb.asc(r.get("id")));
+            case UPDATED -> List.of(cb.desc(r.get("modifiedAt")), cb.desc(r.get("id")));
+            case TITLE -> List.of(cb.asc(cb.lower(r.get("title"))), cb.asc(r.get("id")));
+            case LIKES -> List.of(cb.desc(r.get("likeCount")), cb.desc(r.get("id")));
+            case LIKES_THEN_NEWEST -> List.of(cb.desc(r.get("likeCount")), cb.desc(r.get("createdAt")), cb.desc(r.get("id")));
+        };
+    }
+
+    //The exact check behind the link Bloom filter. Returns the learning id of another resource with this link, or null
+    public Integer findLearningIdByNormalizedLink(String normalizedLink, Integer excludedLearningId) {
+        if (normalizedLink == null || normalizedLink.isBlank()) {
+            throw new IllegalArgumentException("Link cannot be null or blank when searching for " + ENTITY_NAME);
         }
         try(EntityManager em = emf.createEntityManager()){
-            Resource entity = em.createQuery(
-                            "SELECT r " +
-                                    "FROM Resource r " +
-                                    "WHERE lower(r.title) = lower(:title)", Resource.class)
-                    .setParameter("title", title.toLowerCase().trim())
-                    .getSingleResult();
+            TypedQuery<Integer> query = excludedLearningId == null
+                    ? em.createQuery(
+                            "SELECT r.learningId FROM Resource r WHERE r.normalizedLink = :link", Integer.class)
+                    : em.createQuery(
+                            "SELECT r.learningId FROM Resource r WHERE r.normalizedLink = :link AND r.learningId <> :excluded", Integer.class)
+                    .setParameter("excluded", excludedLearningId);
+            List<Integer> found = query
+                    .setParameter("link", normalizedLink)
+                    .setMaxResults(1)
+                    .getResultList();
+            return found.isEmpty() ? null : found.get(0);
+        }
+    }
 
-            if(entity == null){
-                throw new EntityNotFoundException("No " + ENTITY_NAME + " entity with that title");
+    //id, link and stored normalized link of every resource, for seeding the LinkBloomFilter
+    public List<Object[]> findAllLinks() {
+        try(EntityManager em = emf.createEntityManager()){
+            return em.createQuery(
+                            "SELECT r.id, r.learningResourceLink, r.normalizedLink FROM Resource r", Object[].class)
+                    .getResultList();
+        }
+    }
+
+    //Fills normalized_link for rows written before the column existed (or under older normalization rules)
+    public void updateNormalizedLinks(Map<Long, String> normalizedLinksById) {
+        if (normalizedLinksById == null || normalizedLinksById.isEmpty()) {
+            return;
+        }
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            try {
+                em.unwrap(Session.class).doWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(
+                            "UPDATE resource SET normalized_link = ? WHERE id = ?")) {
+                        for (Map.Entry<Long, String> entry : normalizedLinksById.entrySet()) {
+                            statement.setString(1, entry.getValue());
+                            statement.setLong(2, entry.getKey());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                });
+                em.getTransaction().commit();
+            } catch (RuntimeException e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new DatabaseException(500, "Could not backfill the normalized links of the " + ENTITY_NAME + " entities");
             }
+        }
+    }
+
+    //id, learning id, title and like count of every resource, for seeding the SuggestionTrie
+    public List<Object[]> findAllSuggestionRows() {
+        try(EntityManager em = emf.createEntityManager()){
+            return em.createQuery(
+                            "SELECT r.id, r.learningId, r.title, r.likeCount FROM Resource r", Object[].class)
+                    .getResultList();
+        }
+    }
 
-            return entity;
+    //id and title key of every resource, for seeding the TitleIndex. The title comes along for rows without a key yet
+    public List<Object[]> findAllTitleKeys() {
+        try(EntityManager em = emf.createEntityManager()){
+            return em.createQuery(
+                            "SELECT r.id, r.titleKey, r.title FROM Resource r", Object[].class)
+                    .getResultList();
         }
     }
 
 
-    public Set<Resource> findByContributor(Long id) {
+    public List<ResourceRowDTO> findByContributor(Long id) {
         if (id == null) {
             throw new IllegalArgumentException("Contributor id cannot be null when searching for " + ENTITY_NAME);
         }
         try(EntityManager em = emf.createEntityManager()){
-            TypedQuery<Resource> entities = em.createQuery(
-                            "SELECT r " +
-                                    "FROM Resource r " +
-                                    "WHERE r.contributor.id = :contributor_id", Resource.class)
+            TypedQuery<ResourceRowDTO> entities = em.createQuery(
+                            ROW_SELECT +
+                                    "WHERE c.id = :contributor_id", ResourceRowDTO.class)
                     .setParameter("contributor_id", id);
 
-            return new LinkedHashSet<>(entities.getResultList());
+            return entities.getResultList();
         }
     }
 
-    public Set<Resource> findByKeyword(String keyword) {
-        if (keyword == null || keyword.isBlank()) {
-            throw new IllegalArgumentException("Keyword cannot be null or blank when searching for " + ENTITY_NAME);
+    //Newest first, served by idx_resource_contributor_created_at_id
+    public List<ResourceRowDTO> findByContributorPaginated(Long id, int page, int limit) {
+        if (id == null) {
+            throw new IllegalArgumentException("Contributor id cannot be null when searching for " + ENTITY_NAME);
         }
-        String pattern = "%" + keyword.toLowerCase().trim() + "%";
-        try (EntityManager em = emf.createEntityManager()) {
-            TypedQuery<Resource> entities = em.createQuery(
-                            "SELECT r " +
-                                    "FROM Resource r " +
-                                    "WHERE LOWER(r.description) LIKE :pattern",
-                            Resource.class)
-                    .setParameter("pattern", pattern);
+        try(EntityManager em = emf.createEntityManager()){
+            return em.createQuery(
+                            ROW_SELECT +
+                                    "WHERE c.id = :contributor_id " +
+                                    "ORDER BY r.createdAt DESC, r.id DESC", ResourceRowDTO.class)
+                    .setParameter("contributor_id", id)
+                    .setFirstResult(page * limit)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+    }
 
-            return new LinkedHashSet<>(entities.getResultList());
+    public long countByContributor(Long id) {
+        try(EntityManager em = emf.createEntityManager()){
+            return em.createQuery("SELECT COUNT(r) FROM Resource r WHERE r.contributor.id = :contributor_id", Long.class)
+                    .setParameter("contributor_id", id)
+                    .getSingleResult();
+        }
+    }
+
+    //Order is not guaranteed, callers that rank the ids re-order the result themselves
+    public List<ResourceRowDTO> findByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        try (EntityManager em = emf.createEntityManager()) {
+            return em.createQuery(
+                            ROW_SELECT +
+                                    "WHERE r.id IN :ids", ResourceRowDTO.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
         }
     }
 
@@ -252,19 +681,92 @@ public class ResourceDAO implements ICRUD<Resource> {
         try(EntityManager em = emf.createEntityManager()) {
             em.getTransaction().begin();
             try {
-                em.merge(entity);
+                Resource merged = em.merge(entity);
                 em.getTransaction().commit();
-                return entity;
+                //The merged copy carries what the flush generated, like the new modifiedAt
+                return merged;
             } catch (RuntimeException e) {
                 if(em.getTransaction().isActive()){
                     em.getTransaction().rollback();
                 }
+                if (e instanceof OptimisticLockException || e.getCause() instanceof OptimisticLockException) {
+                    throw new ApiException(409, "The " + ENTITY_NAME + " entity was changed by someone else, reload it and try again");
+                }
+                rejectDuplicateLink(e);
                 throw new DatabaseException(500, "Could not update the " + ENTITY_NAME + " entity");
             }
         }
     }
 
+    //Write-behind target of the LikeCounter: one JDBC batch of relative updates in one transaction
+    public void applyLikeDeltas(Map<Integer, Integer> deltasByLearningId) {
+        if (deltasByLearningId == null || deltasByLearningId.isEmpty()) {
+            return;
+        }
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            try {
+                em.unwrap(Session.class).doWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(
+                            "UPDATE resource SET like_count = like_count + ? WHERE learning_id = ?")) {
+                        for (Map.Entry<Integer, Integer> delta : deltasByLearningId.entrySet()) {
+                            statement.setInt(1, delta.getValue());
+                            statement.setInt(2, delta.getKey());
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    }
+                });
+                em.getTransaction().commit();
+            } catch (RuntimeException e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new DatabaseException(500, "Could not update the like counts of the " + ENTITY_NAME + " entities");
+            }
+        }
+    }
+
+    //Null when there are no resources, the upper bound for reconciling in id ranges
+    public Long findMaxId() {
+        try (EntityManager em = emf.createEntityManager()) {
+            return em.createQuery("SELECT MAX(r.id) FROM Resource r", Long.class)
+                    .getSingleResult();
+        }
+    }
+
+    //Recomputes like_count from user_likes for the ids fromId (inclusive) to toId (exclusive), returns how many rows were wrong
+    public int reconcileLikeCounts(long fromId, long toId) {
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            try {
+                int changed = em.createNativeQuery(
+                                "UPDATE resource r " +
+                                        "SET like_count = counted.likes " +
+                                        "FROM (SELECT r2.id, COUNT(ul.id) AS likes " +
+                                        "      FROM resource r2 LEFT JOIN user_likes ul ON ul.resource_id = r2.id " +
+                                        "      WHERE r2.id >= :fromId AND r2.id < :toId " +
+                                        "      GROUP BY r2.id) counted " +
+                                        "WHERE r.id = counted.id AND r.like_count <> counted.likes")
+                        .setParameter("fromId", fromId)
+                        .setParameter("toId", toId)
+                        .executeUpdate();
+                em.getTransaction().commit();
+                return changed;
+            } catch (RuntimeException e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw new DatabaseException(500, "Could not reconcile the like counts of the " + ENTITY_NAME + " entities");
+            }
+        }
+    }
+
     //DELETE
+    /**
+     * Lowers the contributor's contributions in the same transaction, with one atomic UPDATE instead of
+     * merging the contributor back, so concurrent creates and deletes by the same contributor never conflict.
+     */
     @Override
     public boolean delete(Long id) {
         if(id == null){
@@ -278,8 +780,24 @@ public class ResourceDAO implements ICRUD<Resource> {
             }
             try{
                 em.remove(foundEntity);
+                if(foundEntity.getContributor() != null){
+                    int counted = em.createQuery(
+                                    "UPDATE VERSIONED Contributor c " +
+                                            "SET c.contributions = c.contributions - 1 " +
+                                            "WHERE c.id = :id AND c.contributions > 0")
+                            .setParameter("id", foundEntity.getContributor().getId())
+                            .executeUpdate();
+                    if(counted == 0){
+                        throw new ApiException(400, "You cannot have negative contributions, something went wrong!");
+                    }
+                }
                 em.getTransaction().commit();
                 return true;
+            } catch(ApiException e){
+                if(em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                throw e;
             } catch(RuntimeException e){
                 if(em.getTransaction().isActive()) {
                     em.getTransaction().rollback();
@@ -1,25 +1,51 @@
 package app.daos;
 
+import app.caches.LikeCounter;
 import app.entities.Resource;
 import app.entities.UserLike;
 import app.exceptions.DatabaseException;
+import app.indexes.CoLikeIndex;
+import app.indexes.TrendingIndex;
 import app.security.entities.User;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class UserLikeDAO {
     private static EntityManagerFactory emf;
     private static UserLikeDAO instance;
+    private static LikeCounter likeCounter;
+    private static TrendingIndex trendingIndex;
+    private static CoLikeIndex coLikeIndex;
+    private static final int STREAM_FETCH_SIZE = 500;
 
     public static UserLikeDAO getInstance(EntityManagerFactory emf) {
         if (instance == null) {
             instance = new UserLikeDAO();
             UserLikeDAO.emf = emf;
+            UserLikeDAO.likeCounter = LikeCounter.getInstance(ResourceDAO.getInstance(emf));
+            UserLikeDAO.trendingIndex = TrendingIndex.getInstance(ResourceDAO.getInstance(emf));
+            UserLikeDAO.coLikeIndex = CoLikeIndex.getInstance(instance);
         }
         return instance;
     }
 
+    //Like counts are not counted here, the LikeCounter keeps resource.like_count current,
+    //the TrendingIndex the trending scores and the CoLikeIndex the co-like counts
     public UserLike addLike(String username, Long resourceId) {
+        return likeCounter.recording(() -> persistLike(username, resourceId));
+    }
+
+    private UserLike persistLike(String username, Long resourceId) {
         try (EntityManager em = emf.createEntityManager()) {
             em.getTransaction().begin();
             try {
@@ -48,6 +74,9 @@ public class UserLikeDAO {
                 UserLike like = new UserLike(user, resource);
                 em.persist(like);
                 em.getTransaction().commit();
+                likeCounter.increment(resource.getLearningId());
+                trendingIndex.liked(resourceId, like.getCreatedAt());
+                coLikeIndex.liked(username, resourceId);
                 return like;
             } catch (RuntimeException e) {
                 if (em.getTransaction().isActive()) {
@@ -59,16 +88,37 @@ public class UserLikeDAO {
     }
 
     public boolean removeLike(String username, Long resourceId) {
+        return likeCounter.recording(() -> deleteLike(username, resourceId));
+    }
+
+    private boolean deleteLike(String username, Long resourceId) {
         try (EntityManager em = emf.createEntityManager()) {
             em.getTransaction().begin();
             try {
+                //The trending score of a like depends on when it was given, so that is read before it is gone
+                List<LocalDateTime> likedAt = em.createQuery(
+                                "SELECT ul.createdAt FROM UserLike ul WHERE ul.user.username = :username AND ul.resource.id = :resourceId",
+                                LocalDateTime.class)
+                        .setParameter("username", username)
+                        .setParameter("resourceId", resourceId)
+                        .getResultList();
                 int deleted = em.createQuery(
                                 "DELETE FROM UserLike ul WHERE ul.user.username = :username AND ul.resource.id = :resourceId")
                         .setParameter("username", username)
                         .setParameter("resourceId", resourceId)
                         .executeUpdate();
+                Resource resource = deleted > 0 ? em.find(Resource.class, resourceId) : null;
 
                 em.getTransaction().commit();
+                if (resource != null) {
+                    likeCounter.decrement(resource.getLearningId());
+                }
+                if (deleted > 0 && !likedAt.isEmpty() && likedAt.get(0) != null) {
+                    trendingIndex.unliked(resourceId, likedAt.get(0));
+                }
+                if (deleted > 0) {
+                    coLikeIndex.unliked(username, resourceId);
+                }
                 return deleted > 0;
             } catch (RuntimeException e) {
                 if (em.getTransaction().isActive()) {
@@ -79,6 +129,24 @@ public class UserLikeDAO {
         }
     }
 
+    //Every like as (username, resource id), streamed so seeding the CoLikeIndex never holds them all at once
+    public void streamAllLikes(Consumer<Stream<Object[]>> consumer) {
+        try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+            //PostgreSQL only honours the fetch size inside a transaction, otherwise it buffers the whole result
+            session.getTransaction().begin();
+            try (Stream<Object[]> likes = session.createSelectionQuery(
+                            "SELECT ul.user.username, ul.resource.id FROM UserLike ul", Object[].class)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .stream()) {
+                consumer.accept(likes);
+            } finally {
+                if (session.getTransaction().isActive()) {
+                    session.getTransaction().rollback();
+                }
+            }
+        }
+    }
+
     public boolean userLikesResource(String username, Long resourceId) {
         try (EntityManager em = emf.createEntityManager()) {
             Long count = em.createQuery(
@@ -91,14 +159,34 @@ public class UserLikeDAO {
         }
     }
 
-    public int getLikeCount(Long resourceId) {
+    //Every learning id the user has liked, for the streamed list
+    public Set<Integer> findLikedLearningIds(String username) {
+        if (username == null) {
+            return new HashSet<>();
+        }
         try (EntityManager em = emf.createEntityManager()) {
-            Long count = em.createQuery(
-                            "SELECT COUNT(ul) FROM UserLike ul WHERE ul.resource.id = :resourceId",
-                            Long.class)
-                    .setParameter("resourceId", resourceId)
-                    .getSingleResult();
-            return count.intValue();
+            return new HashSet<>(em.createQuery(
+                            "SELECT ul.resource.learningId FROM UserLike ul " +
+                                    "WHERE ul.user.username = :username",
+                            Integer.class)
+                    .setParameter("username", username)
+                    .getResultList());
+        }
+    }
+
+    //The subset of the given resources that the user has liked
+    public Set<Integer> findLikedLearningIds(String username, Collection<Integer> learningIds) {
+        if (username == null || learningIds == null || learningIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        try (EntityManager em = emf.createEntityManager()) {
+            return new HashSet<>(em.createQuery(
+                            "SELECT ul.resource.learningId FROM UserLike ul " +
+                                    "WHERE ul.user.username = :username AND ul.resource.learningId IN :learningIds",
+                            Integer.class)
+                    .setParameter("username", username)
+                    .setParameter("learningIds", learningIds)
+                    .getResultList());
         }
     }
 }
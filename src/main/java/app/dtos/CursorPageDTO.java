@@ -0,0 +1,14 @@
+package app.dtos;
+
+import java.util.List;
+
+public record CursorPageDTO<T>(
+        List<T> content,
+        int limit,
+        String nextCursor,
+        boolean hasNext
+) {
+    public static <T> CursorPageDTO<T> of(List<T> content, int limit, String nextCursor) {
+        return new CursorPageDTO<>(content, limit, nextCursor, nextCursor != null);
+    }
+}
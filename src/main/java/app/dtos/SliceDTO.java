@@ -0,0 +1,16 @@
+package app.dtos;
+
+import java.util.List;
+
+//A page without a total count, for queries that fetch one row more than the limit instead of counting
+public record SliceDTO<T>(
+        List<T> content,
+        int page,
+        int limit,
+        boolean hasNext,
+        boolean hasPrevious
+) {
+    public static <T> SliceDTO<T> of(List<T> content, int page, int limit, boolean hasNext) {
+        return new SliceDTO<>(content, page, limit, hasNext, page > 0);
+    }
+}
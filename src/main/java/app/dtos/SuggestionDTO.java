@@ -0,0 +1,12 @@
+package app.dtos;
+
+import app.enums.SuggestionType;
+
+//One typeahead completion: a resource title (with its learning id) or a contributor name
+public record SuggestionDTO(
+        SuggestionType type,
+        String text,
+        Integer learningId,
+        int popularity
+) {
+}
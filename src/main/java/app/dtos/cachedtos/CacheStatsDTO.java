@@ -0,0 +1,12 @@
+package app.dtos.cachedtos;
+
+public record CacheStatsDTO(
+        long hits,
+        long misses,
+        long evictions,
+        long rejections,
+        int size,
+        int capacity,
+        double hitRate
+) {
+}
@@ -0,0 +1,14 @@
+package app.dtos.categorydtos;
+
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+
+import java.util.Map;
+
+public record FacetCountsDTO(
+        int total,
+        Map<FormatCategory, Integer> formatCategories,
+        Map<SubCategory, Integer> subCategories,
+        Map<FormatCategory, Map<SubCategory, Integer>> combinations
+) {
+}
@@ -0,0 +1,12 @@
+package app.dtos.contributordtos;
+
+//One row of the contributor listing, the resources themselves are paged through /contributors/{name}/resources
+public record ContributorSummaryDTO(
+        Long contributorId,
+        String githubProfile,
+        String screenName,
+        Integer contributions,
+        Long resourceCount,
+        Long totalLikes
+) {
+}
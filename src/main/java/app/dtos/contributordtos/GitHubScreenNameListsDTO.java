@@ -1,9 +0,0 @@
-package app.dtos.contributordtos;
-
-import java.util.List;
-
-public record GitHubScreenNameListsDTO(
-        List<GithubProfileDTO> githubProfileDTOS,
-        List<ScreenNameProfileDTO> screenNameProfileDTOS
-) {
-}
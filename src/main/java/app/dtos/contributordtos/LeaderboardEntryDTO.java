@@ -0,0 +1,10 @@
+package app.dtos.contributordtos;
+
+//Contributors with the same contributions share a rank, the next rank skips accordingly (1, 2, 2, 4)
+public record LeaderboardEntryDTO(
+        int rank,
+        String githubProfile,
+        String screenName,
+        Integer contributions
+) {
+}
@@ -0,0 +1,12 @@
+package app.dtos.resourcedtos;
+
+import java.util.List;
+
+//skipped: learning id already taken, invalid: line could not be imported (the first errors are listed)
+public record ImportResultDTO(
+        long imported,
+        long skipped,
+        long invalid,
+        List<String> errors
+) {
+}
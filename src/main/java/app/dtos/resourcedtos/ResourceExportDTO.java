@@ -0,0 +1,36 @@
+package app.dtos.resourcedtos;
+
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the NDJSON catalog export, and of an import.
+ * The contributor is referenced by name, ids differ between databases.
+ * likeCount is informational on import: likes belong to users and are not part of the export.
+ */
+public record ResourceExportDTO(
+        Integer learningId,
+        String learningResourceLink,
+        String title,
+        FormatCategory formatCategory,
+        SubCategory subCategory,
+        String description,
+        String githubProfile,
+        String screenName,
+        LocalDateTime createdAt,
+        LocalDateTime modifiedAt,
+        Integer likeCount
+) {
+    public static ResourceExportDTO of(ResourceRowDTO row, int likeCount) {
+        return new ResourceExportDTO(row.learningId(), row.learningResourceLink(), row.title(), row.formatCategory(),
+                row.subCategory(), row.description(), row.githubProfile(), row.screenName(),
+                row.createdAt(), row.modifiedAt(), likeCount);
+    }
+
+    public SimpleResourceDTO toSimpleResourceDTO() {
+        return new SimpleResourceDTO(learningId, learningResourceLink, title, formatCategory, subCategory,
+                description, null, createdAt, modifiedAt, likeCount, null);
+    }
+}
@@ -0,0 +1,22 @@
+package app.dtos.resourcedtos;
+
+import app.enums.FormatCategory;
+import app.enums.ResourceSort;
+import app.enums.SubCategory;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+//Every criterion is optional, an empty set or null means "do not filter on this"
+public record ResourceQueryDTO(
+        Set<FormatCategory> formatCategories,
+        Set<SubCategory> subCategories,
+        String contributorName,
+        String keyword,
+        LocalDateTime createdAfter,
+        LocalDateTime createdBefore,
+        ResourceSort sort,
+        int page,
+        int limit
+) {
+}
@@ -0,0 +1,35 @@
+package app.dtos.resourcedtos;
+
+import app.dtos.contributordtos.SimpleContributorDTO;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat constructor projection of a resource and its contributor.
+ * JPQL and Criteria can only call one constructor per row, so the nested SimpleResourceDTO is built from this afterward.
+ */
+public record ResourceRowDTO(
+        Long id,
+        Integer learningId,
+        String learningResourceLink,
+        String title,
+        FormatCategory formatCategory,
+        SubCategory subCategory,
+        String description,
+        Long contributorId,
+        String githubProfile,
+        String screenName,
+        Integer contributions,
+        LocalDateTime createdAt,
+        LocalDateTime modifiedAt,
+        Integer likeCount
+) {
+    public SimpleResourceDTO toSimpleResourceDTO() {
+        SimpleContributorDTO simpleContributorDTO = contributorId == null ? null
+                : new SimpleContributorDTO(contributorId, githubProfile, screenName, contributions);
+        return new SimpleResourceDTO(learningId, learningResourceLink, title, formatCategory, subCategory,
+                description, simpleContributorDTO, createdAt, modifiedAt, likeCount == null ? 0 : likeCount, null);
+    }
+}
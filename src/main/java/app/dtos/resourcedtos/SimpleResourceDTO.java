@@ -19,4 +19,8 @@ public record SimpleResourceDTO(
         Integer likeCount,
         Boolean isLikedByCurrentUser
 ) {
+    public SimpleResourceDTO withLikes(Integer likeCount, Boolean isLikedByCurrentUser) {
+        return new SimpleResourceDTO(learningId, learningResourceLink, title, formatCategory, subCategory,
+                description, simpleContributorDTO, createdAt, modifiedAt, likeCount, isLikedByCurrentUser);
+    }
 }
@@ -19,7 +19,8 @@ import java.util.Set;
 public class Contributor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contributor_seq")
+    @SequenceGenerator(name = "contributor_seq", sequenceName = "contributor_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
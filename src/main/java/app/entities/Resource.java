@@ -2,8 +2,11 @@ package app.entities;
 
 import app.enums.FormatCategory;
 import app.enums.SubCategory;
+import app.utils.TitleUtils;
+import app.utils.UrlUtils;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -12,7 +15,21 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "resource")
+@Table(name = "resource", indexes = {
+        @Index(name = "idx_resource_created_at_id", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_resource_title_key", columnList = "title_key"),
+        //Unique: two parallel creates of the same link can both pass the duplicate check in ResourceService
+        @Index(name = "uq_resource_normalized_link", columnList = "normalized_link", unique = true),
+        //A contributor's resources, newest first, and their count and like total in the contributor listing
+        @Index(name = "idx_resource_contributor_created_at_id", columnList = "contributor_id, created_at DESC, id DESC"),
+        //Most liked first (sort=likes / likes_then_newest), globally and within one category
+        @Index(name = "idx_resource_likes_id", columnList = "like_count DESC, id DESC"),
+        @Index(name = "idx_resource_likes_created_at_id", columnList = "like_count DESC, created_at DESC, id DESC"),
+        @Index(name = "idx_resource_format_likes_id", columnList = "format_category, like_count DESC, id DESC"),
+        @Index(name = "idx_resource_format_likes_created_at_id", columnList = "format_category, like_count DESC, created_at DESC, id DESC"),
+        @Index(name = "idx_resource_sub_likes_id", columnList = "sub_category, like_count DESC, id DESC"),
+        @Index(name = "idx_resource_sub_likes_created_at_id", columnList = "sub_category, like_count DESC, created_at DESC, id DESC")
+})
 @Builder
 @Getter
 @Setter
@@ -23,18 +40,36 @@ import java.util.Set;
 public class Resource {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    //Pooled sequence: one nextval reserves 50 ids, so inserts need no round trip per row and can be batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resource_seq")
+    @SequenceGenerator(name = "resource_seq", sequenceName = "resource_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
+    //Existing rows get 0 when the column is added, merge() would treat a null version as a new entity
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "learning_id", nullable = false ,unique = true)
     private Integer learningId;
 
     @EqualsAndHashCode.Include
     private String learningResourceLink;
 
+    //Canonical form of the link (see UrlUtils), what duplicate detection compares on
+    @Column(name = "normalized_link", length = 2048)
+    @Setter(AccessLevel.NONE)
+    private String normalizedLink;
+
     private String title;
 
+    //Case-folded, whitespace-collapsed title, kept in step with title by updateLookupKeys()
+    @Column(name = "title_key")
+    @Setter(AccessLevel.NONE)
+    private String titleKey;
+
     @Enumerated(EnumType.STRING)
     private FormatCategory formatCategory;
 
@@ -52,6 +87,11 @@ public class Resource {
     private LocalDateTime modifiedAt;
 
 
+    //Denormalized COUNT of user_likes, only ever written by LikeCounter (flush and reconcile)
+    @ColumnDefault("0")
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false)
+    private Integer likeCount;
+
     @ManyToOne
     @JoinColumn(name = "contributor_id", nullable = false)
     @ToString.Exclude
@@ -63,6 +103,14 @@ public class Resource {
     private Set<UserLike> likes = new HashSet<>();
 
 
+    //Stateless sessions skip lifecycle callbacks, code that inserts through one calls this itself
+    @PrePersist
+    @PreUpdate
+    public void updateLookupKeys() {
+        this.titleKey = TitleUtils.key(title);
+        this.normalizedLink = UrlUtils.normalize(learningResourceLink);
+    }
+
     public Resource(Integer learningId, String learningResourceLink, FormatCategory formatCategory, SubCategory subCategory, String description, Contributor contributor) {
         this.learningId = learningId;
         this.learningResourceLink = learningResourceLink;
@@ -10,6 +10,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "user_likes", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user_username", "resource_id"})
+}, indexes = {
+        @Index(name = "idx_user_likes_created_at", columnList = "created_at")
 })
 @Getter
 @Setter
@@ -19,7 +21,8 @@ import java.time.LocalDateTime;
 public class UserLike {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_likes_seq")
+    @SequenceGenerator(name = "user_likes_seq", sequenceName = "user_likes_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,10 @@
+package app.enums;
+
+public enum ResourceSort {
+    NEWEST,
+    OLDEST,
+    UPDATED,
+    TITLE,
+    LIKES,
+    LIKES_THEN_NEWEST
+}
@@ -0,0 +1,123 @@
+package app.indexes;
+
+import app.daos.ResourceDAO;
+import app.dtos.categorydtos.FacetCountsDTO;
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resource counts per FormatCategory x SubCategory, kept in a primitive matrix indexed by enum ordinal.
+ * Seeded with one lightweight query at startup, after that the ResourceService keeps it current,
+ * so the facets endpoint never touches the database.
+ */
+public class CategoryFacets implements IResourceIndex {
+    private static final FormatCategory[] FORMATS = FormatCategory.values();
+    private static final SubCategory[] SUBS = SubCategory.values();
+    private static CategoryFacets instance;
+
+    private final int[][] matrix = new int[FORMATS.length][SUBS.length];
+    private final int[] formatTotals = new int[FORMATS.length];
+    private final int[] subTotals = new int[SUBS.length];
+    //What each resource was counted under, so an update can move it from its old cell
+    private final Map<Long, Categories> categoriesById = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Categories(FormatCategory formatCategory, SubCategory subCategory) {
+    }
+
+    private CategoryFacets() {
+
+    }
+
+    public static synchronized CategoryFacets getInstance(ResourceDAO resourceDAO) {
+        if (instance == null) {
+            instance = new CategoryFacets();
+            for (Object[] row : resourceDAO.findAllCategories()) {
+                instance.add((Long) row[0], new Categories((FormatCategory) row[1], (SubCategory) row[2]));
+            }
+        }
+        return instance;
+    }
+
+    //WRITE
+    @Override
+    public void put(Resource resource) {
+        if (resource == null || resource.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            subtract(categoriesById.remove(resource.getId()));
+            add(resource.getId(), new Categories(resource.getFormatCategory(), resource.getSubCategory()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long resourceId) {
+        lock.writeLock().lock();
+        try {
+            subtract(categoriesById.remove(resourceId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Long id, Categories categories) {
+        categoriesById.put(id, categories);
+        count(categories, 1);
+    }
+
+    private void subtract(Categories categories) {
+        if (categories != null) {
+            count(categories, -1);
+        }
+    }
+
+    //A resource missing one of its categories is still counted in the dimension it has
+    private void count(Categories categories, int delta) {
+        FormatCategory format = categories.formatCategory();
+        SubCategory sub = categories.subCategory();
+        if (format != null) {
+            formatTotals[format.ordinal()] += delta;
+        }
+        if (sub != null) {
+            subTotals[sub.ordinal()] += delta;
+        }
+        if (format != null && sub != null) {
+            matrix[format.ordinal()][sub.ordinal()] += delta;
+        }
+    }
+
+    //READ
+    public FacetCountsDTO getCounts() {
+        Map<FormatCategory, Integer> formatCategories = new EnumMap<>(FormatCategory.class);
+        Map<SubCategory, Integer> subCategories = new EnumMap<>(SubCategory.class);
+        Map<FormatCategory, Map<SubCategory, Integer>> combinations = new EnumMap<>(FormatCategory.class);
+
+        lock.readLock().lock();
+        try {
+            for (FormatCategory format : FORMATS) {
+                formatCategories.put(format, formatTotals[format.ordinal()]);
+                Map<SubCategory, Integer> row = new EnumMap<>(SubCategory.class);
+                for (SubCategory sub : SUBS) {
+                    row.put(sub, matrix[format.ordinal()][sub.ordinal()]);
+                }
+                combinations.put(format, row);
+            }
+            for (SubCategory sub : SUBS) {
+                subCategories.put(sub, subTotals[sub.ordinal()]);
+            }
+            return new FacetCountsDTO(categoriesById.size(), formatCategories, subCategories, combinations);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
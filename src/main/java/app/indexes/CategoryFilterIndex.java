@@ -0,0 +1,227 @@
+package app.indexes;
+
+import app.daos.ResourceDAO;
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One bitset of resource slots per FormatCategory and per SubCategory, so any combination of categories
+ * is answered with a few bitwise operations: OR inside a dimension, AND across the two dimensions.
+ * Slots are kept in (createdAt, id) order, the same order the newest-first feeds use, so a page is read by walking
+ * the matching bits from the end and stops once it is full. New resources are appended, an import that brings an
+ * older createdAt, or too many slots left empty by deletes, makes the next read rebuild the slots in order.
+ */
+public class CategoryFilterIndex implements IResourceIndex {
+    private static CategoryFilterIndex instance;
+    private static final Comparator<Slot> SLOT_ORDER = Comparator
+            .comparing(Slot::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Slot::id);
+
+    private final BitSet[] byFormat = newBitSets(FormatCategory.values().length);
+    private final BitSet[] bySub = newBitSets(SubCategory.values().length);
+    private final BitSet occupied = new BitSet();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final List<Slot> slots = new ArrayList<>();
+    private int emptySlots;
+    private boolean ordered = true;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Slot(Long id, LocalDateTime createdAt, FormatCategory formatCategory, SubCategory subCategory) {
+    }
+
+    //The ids on one page, newest first, and how many resources match in total
+    public record Match(List<Long> ids, int total) {
+    }
+
+    private CategoryFilterIndex() {
+
+    }
+
+    public static synchronized CategoryFilterIndex getInstance(ResourceDAO resourceDAO) {
+        if (instance == null) {
+            instance = new CategoryFilterIndex();
+            for (Object[] row : resourceDAO.findAllCategories()) {
+                instance.index(new Slot((Long) row[0], (LocalDateTime) row[3], (FormatCategory) row[1], (SubCategory) row[2]));
+            }
+        }
+        return instance;
+    }
+
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+
+    //WRITE
+    @Override
+    public void put(Resource resource) {
+        if (resource == null || resource.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index(new Slot(resource.getId(), resource.getCreatedAt(), resource.getFormatCategory(), resource.getSubCategory()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long resourceId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(resourceId);
+            if (slot == null) {
+                return;
+            }
+            clear(slot);
+            occupied.clear(slot);
+            slots.set(slot, null);
+            emptySlots++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //createdAt never changes, so an update keeps its slot and only the categories are set again
+    private void index(Slot entry) {
+        Integer slot = slotById.get(entry.id());
+        if (slot != null) {
+            clear(slot);
+            entry = new Slot(entry.id(), slots.get(slot).createdAt(), entry.formatCategory(), entry.subCategory());
+            slots.set(slot, entry);
+        } else {
+            //The highest occupied slot holds the newest resource, anything older than it lands out of order
+            int newest = occupied.length() - 1;
+            if (newest >= 0 && SLOT_ORDER.compare(entry, slots.get(newest)) < 0) {
+                ordered = false;
+            }
+            slot = slots.size();
+            slots.add(entry);
+            slotById.put(entry.id(), slot);
+            occupied.set(slot);
+        }
+        set(slot, entry);
+    }
+
+    private void set(int slot, Slot entry) {
+        if (entry.formatCategory() != null) {
+            byFormat[entry.formatCategory().ordinal()].set(slot);
+        }
+        if (entry.subCategory() != null) {
+            bySub[entry.subCategory().ordinal()].set(slot);
+        }
+    }
+
+    //Categories may change on update, so the slot is cleared everywhere before it is set again
+    private void clear(int slot) {
+        for (BitSet bitSet : byFormat) {
+            bitSet.clear(slot);
+        }
+        for (BitSet bitSet : bySub) {
+            bitSet.clear(slot);
+        }
+    }
+
+    //Sorts the live slots and renumbers them from 0, which also drops the empty ones
+    private void rebuild() {
+        List<Slot> live = new ArrayList<>(slotById.size());
+        for (Slot entry : slots) {
+            if (entry != null) {
+                live.add(entry);
+            }
+        }
+        live.sort(SLOT_ORDER);
+        for (BitSet bitSet : byFormat) {
+            bitSet.clear();
+        }
+        for (BitSet bitSet : bySub) {
+            bitSet.clear();
+        }
+        occupied.clear();
+        slots.clear();
+        slotById.clear();
+        for (Slot entry : live) {
+            int slot = slots.size();
+            slots.add(entry);
+            slotById.put(entry.id(), slot);
+            occupied.set(slot);
+            set(slot, entry);
+        }
+        emptySlots = 0;
+        ordered = true;
+    }
+
+    private boolean needsRebuild() {
+        return !ordered || emptySlots > slots.size() / 2;
+    }
+
+    //READ
+
+    /**
+     * One page of the resources in any of the format categories and any of the sub categories, newest first.
+     * An empty set leaves that dimension unfiltered. Only the bits up to the end of the page are visited,
+     * the total comes from the cardinality of the matching bits.
+     */
+    public Match match(Set<FormatCategory> formatCategories, Set<SubCategory> subCategories, int page, int limit) {
+        lock.readLock().lock();
+        try {
+            if (needsRebuild()) {
+                //A read lock cannot be upgraded, the check is repeated once the write lock is held
+                lock.readLock().unlock();
+                lock.writeLock().lock();
+                try {
+                    if (needsRebuild()) {
+                        rebuild();
+                    }
+                    lock.readLock().lock();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            BitSet matches = (BitSet) occupied.clone();
+            if (!formatCategories.isEmpty()) {
+                matches.and(union(byFormat, formatCategories.stream().map(Enum::ordinal).toList()));
+            }
+            if (!subCategories.isEmpty()) {
+                matches.and(union(bySub, subCategories.stream().map(Enum::ordinal).toList()));
+            }
+
+            long skip = (long) page * limit;
+            List<Long> ids = new ArrayList<>(limit);
+            for (int slot = matches.previousSetBit(matches.length() - 1); slot >= 0 && ids.size() < limit;
+                 slot = matches.previousSetBit(slot - 1)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    ids.add(slots.get(slot).id());
+                }
+            }
+            return new Match(ids, matches.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static BitSet union(BitSet[] bitSets, List<Integer> ordinals) {
+        BitSet union = new BitSet();
+        for (int ordinal : ordinals) {
+            union.or(bitSets[ordinal]);
+        }
+        return union;
+    }
+}
@@ -0,0 +1,154 @@
+package app.indexes;
+
+import app.daos.UserLikeDAO;
+import app.entities.Resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * "Users who liked this also liked": for every resource, how many users liked both it and each other resource.
+ * Kept up to date from the likes themselves: a new like is counted against every other resource its user already
+ * likes, an unlike takes that back again. Both the per-user likes and the co-like counts are LongIntMaps keyed by
+ * resource id, so a million likes do not turn into millions of boxed map entries.
+ * Every pair of a user's likes is counted, so the fan-out is capped: only the first MAX_PAIRED_LIKES likes a user holds
+ * are paired, later ones are remembered but left out of the counts, so no single user adds more than about
+ * MAX_PAIRED_LIKES² / 2 pairs. An unlike of a paired like frees its place for the user's next like.
+ * Seeded from user_likes at startup.
+ */
+public class CoLikeIndex implements IResourceIndex {
+    private static CoLikeIndex instance;
+    public static final int MAX_PAIRED_LIKES = 250;
+    //The value a user's like is stored with, tells an unlike whether it was counted
+    private static final int PAIRED = 1;
+    private static final int UNPAIRED = 2;
+
+    private final Map<String, LongIntMap> likesByUser = new HashMap<>();
+    private final Map<Long, LongIntMap> coLikes = new HashMap<>();
+
+    //Package-private so tests can start from an empty index
+    CoLikeIndex() {
+
+    }
+
+    public static synchronized CoLikeIndex getInstance(UserLikeDAO userLikeDAO) {
+        if (instance == null) {
+            CoLikeIndex index = new CoLikeIndex();
+            userLikeDAO.streamAllLikes(likes -> likes.forEach(like -> index.liked((String) like[0], (Long) like[1])));
+            instance = index;
+        }
+        return instance;
+    }
+
+    //READ
+
+    //The resources co-liked most often with this one, ties go to the newest resource
+    public synchronized List<Long> related(Long resourceId, int limit) {
+        LongIntMap counts = coLikes.get(resourceId);
+        if (counts == null || limit <= 0) {
+            return List.of();
+        }
+        //Min-heap of the best limit so far as {count, id}, the root is the first one to go
+        PriorityQueue<long[]> best = new PriorityQueue<>((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        counts.forEach((otherId, count) -> {
+            best.add(new long[]{count, otherId});
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+        List<Long> related = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            related.add(best.poll()[1]);
+        }
+        Collections.reverse(related);
+        return related;
+    }
+
+    //WRITE
+
+    //Called by UserLikeDAO after a like is committed
+    public synchronized void liked(String username, Long resourceId) {
+        if (username == null || resourceId == null) {
+            return;
+        }
+        LongIntMap liked = likesByUser.computeIfAbsent(username, name -> new LongIntMap());
+        if (liked.get(resourceId) != 0) {
+            return;
+        }
+        long[] paired = paired(liked);
+        if (paired.length >= MAX_PAIRED_LIKES) {
+            liked.add(resourceId, UNPAIRED);
+            return;
+        }
+        for (long otherId : paired) {
+            count(resourceId, otherId, 1);
+            count(otherId, resourceId, 1);
+        }
+        liked.add(resourceId, PAIRED);
+    }
+
+    public synchronized void unliked(String username, Long resourceId) {
+        LongIntMap liked = username == null ? null : likesByUser.get(username);
+        if (liked == null || resourceId == null) {
+            return;
+        }
+        if (liked.remove(resourceId) == PAIRED) {
+            for (long otherId : paired(liked)) {
+                count(resourceId, otherId, -1);
+                count(otherId, resourceId, -1);
+            }
+        }
+        if (liked.isEmpty()) {
+            likesByUser.remove(username);
+        }
+    }
+
+    //Likes carry no resource data, there is nothing to update
+    @Override
+    public void put(Resource resource) {
+
+    }
+
+    //The likes of a deleted resource go with it (cascade), so it leaves every count and every user
+    @Override
+    public synchronized void remove(Long resourceId) {
+        LongIntMap counts = coLikes.remove(resourceId);
+        if (counts != null) {
+            for (long otherId : counts.keys()) {
+                LongIntMap other = coLikes.get(otherId);
+                if (other != null) {
+                    other.remove(resourceId);
+                    if (other.isEmpty()) {
+                        coLikes.remove(otherId);
+                    }
+                }
+            }
+        }
+        likesByUser.values().forEach(liked -> liked.remove(resourceId));
+        likesByUser.values().removeIf(LongIntMap::isEmpty);
+    }
+
+    private static long[] paired(LongIntMap liked) {
+        long[] paired = new long[liked.size()];
+        int[] count = {0};
+        liked.forEach((id, state) -> {
+            if (state == PAIRED) {
+                paired[count[0]++] = id;
+            }
+        });
+        return Arrays.copyOf(paired, count[0]);
+    }
+
+    private void count(long resourceId, long otherId, int delta) {
+        LongIntMap counts = coLikes.computeIfAbsent(resourceId, id -> new LongIntMap());
+        counts.add(otherId, delta);
+        if (counts.isEmpty()) {
+            coLikes.remove(resourceId);
+        }
+    }
+}
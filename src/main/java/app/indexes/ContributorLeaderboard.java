@@ -0,0 +1,261 @@
+package app.indexes;
+
+import app.daos.ContributorDAO;
+import app.dtos.contributordtos.LeaderboardEntryDTO;
+import app.entities.Contributor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Every contributor ordered by contributions (most first, then lowest id), kept in memory as a treap where each
+ * node also knows the size of its subtree. That makes a move after a changed contributions count, the rank of one
+ * contributor and finding where a page starts all O(log n), a page then costs O(limit) more.
+ * Seeded from the database at startup, the ResourceService and ContributorService keep it current.
+ */
+public class ContributorLeaderboard {
+    private static ContributorLeaderboard instance;
+
+    private final Map<Long, Node> byId = new HashMap<>();
+    //Lowercased GitHub profile and screen name, like ContributorDAO.findByName matches them
+    private final Map<String, Long> idByName = new HashMap<>();
+    private Node root;
+
+    private static final class Node {
+        private final Long id;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private String githubProfile;
+        private String screenName;
+        private int contributions;
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(Long id) {
+            this.id = id;
+        }
+    }
+
+    //Package-private so tests can start from an empty leaderboard
+    ContributorLeaderboard() {
+
+    }
+
+    public static synchronized ContributorLeaderboard getInstance(ContributorDAO contributorDAO) {
+        if (instance == null) {
+            ContributorLeaderboard leaderboard = new ContributorLeaderboard();
+            for (Object[] row : contributorDAO.findAllNames()) {
+                leaderboard.put((Long) row[0], (String) row[1], (String) row[2], (Integer) row[3]);
+            }
+            instance = leaderboard;
+        }
+        return instance;
+    }
+
+    //READ
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    //The contributors at positions offset .. offset + limit - 1
+    public synchronized List<LeaderboardEntryDTO> range(int offset, int limit) {
+        List<Node> nodes = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+        collect(root, offset, offset + limit, nodes);
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(nodes.size());
+        int rank = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (i == 0 || node.contributions != nodes.get(i - 1).contributions) {
+                rank = countAbove(node.contributions) + 1;
+            }
+            entries.add(toDTO(node, rank));
+        }
+        return entries;
+    }
+
+    //Same positions as range(), only the contributor ids
+    public synchronized List<Long> idsInRange(int offset, int limit) {
+        List<Node> nodes = new ArrayList<>();
+        collect(root, offset, offset + limit, nodes);
+        return nodes.stream().map(node -> node.id).toList();
+    }
+
+    //Null when no contributor has this GitHub or screen name
+    public synchronized LeaderboardEntryDTO rankOf(String name) {
+        Long id = name == null ? null : idByName.get(name.trim().toLowerCase(Locale.ROOT));
+        Node node = id == null ? null : byId.get(id);
+        return node == null ? null : toDTO(node, countAbove(node.contributions) + 1);
+    }
+
+    //WRITE
+
+    //Adds the contributor, or moves it to where its current contributions rank it
+    public synchronized void put(Contributor contributor) {
+        if (contributor == null || contributor.getId() == null) {
+            return;
+        }
+        put(contributor.getId(), contributor.getGithubProfile(), contributor.getScreenName(), contributor.getContributions());
+    }
+
+    public synchronized void remove(Long contributorId) {
+        Node node = byId.remove(contributorId);
+        if (node != null) {
+            root = delete(root, node);
+            forgetNames(node);
+        }
+    }
+
+    private void put(Long id, String githubProfile, String screenName, Integer contributions) {
+        Node node = byId.get(id);
+        if (node == null) {
+            node = new Node(id);
+            byId.put(id, node);
+        } else {
+            root = delete(root, node);
+            forgetNames(node);
+        }
+        node.githubProfile = githubProfile;
+        node.screenName = screenName;
+        node.contributions = contributions == null ? 0 : contributions;
+        node.left = null;
+        node.right = null;
+        node.size = 1;
+        rememberNames(node);
+        root = insert(root, node);
+    }
+
+    private void rememberNames(Node node) {
+        for (String name : new String[]{node.githubProfile, node.screenName}) {
+            if (name != null && !name.isBlank()) {
+                idByName.put(name.trim().toLowerCase(Locale.ROOT), node.id);
+            }
+        }
+    }
+
+    private void forgetNames(Node node) {
+        for (String name : new String[]{node.githubProfile, node.screenName}) {
+            if (name != null && !name.isBlank()) {
+                idByName.remove(name.trim().toLowerCase(Locale.ROOT), node.id);
+            }
+        }
+    }
+
+    //TREAP
+
+    //Negative when a ranks before b
+    private static int compare(Node a, Node b) {
+        if (a.contributions != b.contributions) {
+            return Integer.compare(b.contributions, a.contributions);
+        }
+        return Long.compare(a.id, b.id);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        return update(node);
+    }
+
+    private static Node delete(Node node, Node removed) {
+        if (node == null) {
+            return null;
+        }
+        if (node == removed) {
+            return merge(node.left, node.right);
+        }
+        if (compare(removed, node) < 0) {
+            node.left = delete(node.left, removed);
+        } else {
+            node.right = delete(node.right, removed);
+        }
+        return update(node);
+    }
+
+    //Every node in left ranks before every node in right
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = update(node);
+        return update(pivot);
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = update(node);
+        return update(pivot);
+    }
+
+    //Adds the nodes at positions from .. to - 1 of this subtree in order, skipping subtrees outside that range
+    private static void collect(Node node, int from, int to, List<Node> out) {
+        if (node == null || from >= to || to <= 0 || from >= node.size) {
+            return;
+        }
+        int leftSize = size(node.left);
+        collect(node.left, from, to, out);
+        if (from <= leftSize && leftSize < to) {
+            out.add(node);
+        }
+        collect(node.right, from - leftSize - 1, to - leftSize - 1, out);
+    }
+
+    //How many contributors have more contributions than this
+    private int countAbove(int contributions) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.contributions > contributions) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private static LeaderboardEntryDTO toDTO(Node node, int rank) {
+        return new LeaderboardEntryDTO(rank, node.githubProfile, node.screenName, node.contributions);
+    }
+}
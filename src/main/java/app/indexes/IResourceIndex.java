@@ -0,0 +1,16 @@
+package app.indexes;
+
+import app.entities.Resource;
+
+/**
+ * In-memory view over the resource table.
+ * The ResourceService calls put() after every create/update and remove() after every delete,
+ * so implementations never have to query the database after they have been seeded.
+ */
+public interface IResourceIndex {
+
+    //Adds the resource, or replaces what is indexed for the same resource id
+    void put(Resource resource);
+
+    void remove(Long resourceId);
+}
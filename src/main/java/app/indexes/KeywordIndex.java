@@ -0,0 +1,226 @@
+package app.indexes;
+
+import app.daos.ResourceDAO;
+import app.entities.Resource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over resource titles and descriptions, ranked with BM25.
+ * Seeded once from the resource table and kept current by the ResourceService afterward.
+ * A search keeps only the MAX_RESULTS best matches (a bounded heap instead of sorting every match), and the ranking
+ * is remembered per index version. IDF and average length move with every write, so a cursor names the version
+ * its pages come from and keeps paging through that same ranking while it is still cached.
+ */
+public class KeywordIndex implements IResourceIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    //Title terms count this many times, a hit in the title says more than a hit in the description
+    private static final int TITLE_BOOST = 2;
+    public static final int MAX_RESULTS = 1_000;
+    private static final int MAX_CACHED_RANKINGS = 256;
+    private static final Comparator<ScoredResource> RANK_ORDER = Comparator.comparingDouble(ScoredResource::score).reversed()
+            .thenComparing(ScoredResource::resourceId);
+    private static KeywordIndex instance;
+
+    //term -> (resource id -> term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    private long totalLength;
+    //Raised by every write, a ranking is only valid for the version it was computed in
+    private long version;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Ranking> rankings = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Ranking> eldest) {
+            return size() > MAX_CACHED_RANKINGS;
+        }
+    };
+
+    public record ScoredResource(Long resourceId, double score) {
+    }
+
+    //At most MAX_RESULTS resources, best first, as ranked in the given index version
+    public record Ranking(long version, List<ScoredResource> resources) {
+    }
+
+    private KeywordIndex() {
+
+    }
+
+    public static synchronized KeywordIndex getInstance(ResourceDAO resourceDAO) {
+        if (instance == null) {
+            instance = new KeywordIndex();
+            resourceDAO.streamAllText(rows -> rows.forEach(row ->
+                    instance.index((Long) row[0], (String) row[1], (String) row[2])));
+        }
+        return instance;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    //WRITE
+    @Override
+    public void put(Resource resource) {
+        if (resource == null || resource.getId() == null) {
+            return;
+        }
+        index(resource.getId(), resource.getTitle(), resource.getDescription());
+    }
+
+    private void index(Long resourceId, String title, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(title)) {
+            frequencies.merge(token, TITLE_BOOST, Integer::sum);
+        }
+        for (String token : tokenize(description)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(resourceId);
+            frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(resourceId, tf));
+            documentTerms.put(resourceId, frequencies.keySet());
+            documentLengths.put(resourceId, length);
+            totalLength += length;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long resourceId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(resourceId);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeDocument(Long resourceId) {
+        Set<String> terms = documentTerms.remove(resourceId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(resourceId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= documentLengths.remove(resourceId);
+    }
+
+    //READ
+
+    /**
+     * The best MAX_RESULTS resources matching at least one term of the query in the current index version,
+     * best BM25 score first and ties broken by resource id.
+     */
+    public Ranking search(String query) {
+        return search(query, -1);
+    }
+
+    /**
+     * The ranking a cursor was issued from, when it is still cached, otherwise the current one.
+     * Callers compare the version of the result with the one they asked for.
+     */
+    public Ranking search(String query, long version) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Keyword must contain letters or digits when searching for resources");
+        }
+        String termsKey = String.join(" ", terms);
+        if (version >= 0) {
+            synchronized (rankings) {
+                Ranking cached = rankings.get(termsKey + "@" + version);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            String key = termsKey + "@" + this.version;
+            synchronized (rankings) {
+                Ranking cached = rankings.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            Ranking ranking = new Ranking(this.version, rank(terms));
+            synchronized (rankings) {
+                rankings.put(key, ranking);
+            }
+            return ranking;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Scores every posting of the terms and keeps the best MAX_RESULTS in a min-heap, the caller holds the read lock
+    private List<ScoredResource> rank(Set<String> terms) {
+        Map<Long, Double> scores = new HashMap<>();
+        int documentCount = documentLengths.size();
+        if (documentCount == 0) {
+            return List.of();
+        }
+        double averageLength = (double) totalLength / documentCount;
+
+        for (String term : terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+            posting.forEach((resourceId, tf) -> {
+                double norm = K1 * (1 - B + B * documentLengths.get(resourceId) / averageLength);
+                scores.merge(resourceId, idf * (tf * (K1 + 1)) / (tf + norm), Double::sum);
+            });
+        }
+
+        //The heap's head is the worst of the kept results, a better one replaces it
+        PriorityQueue<ScoredResource> best = new PriorityQueue<>(RANK_ORDER.reversed());
+        scores.forEach((resourceId, score) -> {
+            ScoredResource candidate = new ScoredResource(resourceId, score);
+            if (best.size() < MAX_RESULTS) {
+                best.add(candidate);
+            } else if (RANK_ORDER.compare(candidate, best.peek()) < 0) {
+                best.poll();
+                best.add(candidate);
+            }
+        });
+        List<ScoredResource> ranked = new ArrayList<>(best);
+        ranked.sort(RANK_ORDER);
+        return List.copyOf(ranked);
+    }
+}
@@ -0,0 +1,157 @@
+package app.indexes;
+
+import app.daos.ResourceDAO;
+import app.entities.Resource;
+import app.utils.UrlUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bloom filter over the normalized links of all resources, sized for a 1% false positive rate.
+ * "No" is certain, so a new link is accepted without a query. "Maybe" has to be confirmed against
+ * the normalized_link index. Bloom filters cannot forget: deleted links stay in as false positives
+ * until the filter is rebuilt, which happens when it outgrows its capacity.
+ */
+public class LinkBloomFilter implements IResourceIndex {
+    private static final int MIN_CAPACITY = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static LinkBloomFilter instance;
+
+    private final ResourceDAO resourceDAO;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] bits;
+    private int bitCount;
+    private int hashCount;
+    private int capacity;
+    private int inserted;
+
+    private LinkBloomFilter(ResourceDAO resourceDAO) {
+        this.resourceDAO = resourceDAO;
+    }
+
+    public static synchronized LinkBloomFilter getInstance(ResourceDAO resourceDAO) {
+        if (instance == null) {
+            instance = new LinkBloomFilter(resourceDAO);
+            instance.rebuild();
+        }
+        return instance;
+    }
+
+    /**
+     * Reads every link, sized at twice the current count. Rows whose stored normalized_link is missing
+     * or out of date get it written back on the way, so the exact check can rely on the column.
+     * The lock is held while reading, so a put() that lands meanwhile is applied after the rebuild, not lost.
+     */
+    private void rebuild() {
+        Map<Long, String> outdated = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            List<Object[]> rows = resourceDAO.findAllLinks();
+            allocate(Math.max(MIN_CAPACITY, rows.size() * 2));
+            for (Object[] row : rows) {
+                String normalizedLink = UrlUtils.normalize((String) row[1]);
+                if (!Objects.equals(normalizedLink, row[2])) {
+                    outdated.put((Long) row[0], normalizedLink);
+                }
+                add(normalizedLink);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        resourceDAO.updateNormalizedLinks(outdated);
+    }
+
+    //m = -n ln(p) / ln(2)^2 bits and k = m/n ln(2) hash functions give the false positive rate p at n entries
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.bitCount = (int) Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        this.bits = new long[(bitCount + 63) / 64];
+        this.inserted = 0;
+    }
+
+    //READ
+    public boolean mightContain(String normalizedLink) {
+        if (normalizedLink == null) {
+            return false;
+        }
+        long hash1 = hash(normalizedLink);
+        long hash2 = mix(hash1);
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < hashCount; i++) {
+                int bit = bitIndex(hash1, hash2, i);
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //WRITE
+    @Override
+    public void put(Resource resource) {
+        if (resource == null) {
+            return;
+        }
+        boolean full;
+        lock.writeLock().lock();
+        try {
+            add(UrlUtils.normalize(resource.getLearningResourceLink()));
+            full = inserted > capacity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (full) {
+            rebuild();
+        }
+    }
+
+    //Nothing to do, see the class comment
+    @Override
+    public void remove(Long resourceId) {
+
+    }
+
+    private void add(String normalizedLink) {
+        if (normalizedLink == null) {
+            return;
+        }
+        long hash1 = hash(normalizedLink);
+        long hash2 = mix(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(hash1, hash2, i);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        inserted++;
+    }
+
+    //Double hashing: the i-th of the k hash functions is hash1 + i * hash2
+    private int bitIndex(long hash1, long hash2, int i) {
+        return (int) Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+    }
+
+    //64-bit FNV-1a over the characters, String.hashCode() has too few bits for large filters
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    //Finalizer of MurmurHash3, turns the first hash into an independent looking second one
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (hash ^ (hash >>> 33)) | 1L;
+    }
+}
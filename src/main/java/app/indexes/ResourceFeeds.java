@@ -0,0 +1,266 @@
+package app.indexes;
+
+import app.caches.LikeCounter;
+import app.converters.ConvertToResourceDTO;
+import app.daos.ResourceDAO;
+import app.dtos.contributordtos.SimpleContributorDTO;
+import app.dtos.resourcedtos.ResourceQueryDTO;
+import app.dtos.resourcedtos.ResourceRowDTO;
+import app.dtos.resourcedtos.SimpleResourceDTO;
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.ResourceSort;
+import app.enums.SubCategory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The "newest" and "recently updated" feeds, globally and per FormatCategory/SubCategory,
+ * each holding the first FEED_SIZE resources in feed order as ready-made DTOs.
+ * Seeded from the database at startup and updated by the ResourceService on every write, so reading a feed costs no query.
+ * A feed only goes back to the database when a delete (or a category change) leaves it with fewer entries than
+ * the database has, it then reloads itself on the next read.
+ */
+public class ResourceFeeds implements IResourceIndex, LikeCounter.FlushListener {
+    public static final int FEED_SIZE = 100;
+    private static ResourceFeeds instance;
+
+    private final ResourceDAO resourceDAO;
+    private final ConvertToResourceDTO convertToResourceDTO = new ConvertToResourceDTO();
+    private final Feed newest;
+    private final Feed updated;
+    private final Map<FormatCategory, Feed> newestByFormat = new EnumMap<>(FormatCategory.class);
+    private final Map<FormatCategory, Feed> updatedByFormat = new EnumMap<>(FormatCategory.class);
+    private final Map<SubCategory, Feed> newestBySub = new EnumMap<>(SubCategory.class);
+    private final Map<SubCategory, Feed> updatedBySub = new EnumMap<>(SubCategory.class);
+    private final List<Feed> allFeeds = new ArrayList<>();
+
+    private record Entry(Long id, SimpleResourceDTO dto) {
+    }
+
+    private ResourceFeeds(ResourceDAO resourceDAO) {
+        this.resourceDAO = resourceDAO;
+        this.newest = register(new Feed(ResourceSort.NEWEST, null, null));
+        this.updated = register(new Feed(ResourceSort.UPDATED, null, null));
+        for (FormatCategory format : FormatCategory.values()) {
+            newestByFormat.put(format, register(new Feed(ResourceSort.NEWEST, format, null)));
+            updatedByFormat.put(format, register(new Feed(ResourceSort.UPDATED, format, null)));
+        }
+        for (SubCategory sub : SubCategory.values()) {
+            newestBySub.put(sub, register(new Feed(ResourceSort.NEWEST, null, sub)));
+            updatedBySub.put(sub, register(new Feed(ResourceSort.UPDATED, null, sub)));
+        }
+    }
+
+    public static synchronized ResourceFeeds getInstance(ResourceDAO resourceDAO) {
+        if (instance == null) {
+            instance = new ResourceFeeds(resourceDAO);
+            instance.allFeeds.forEach(Feed::reload);
+            LikeCounter.getInstance(resourceDAO).addListener(instance);
+        }
+        return instance;
+    }
+
+    private Feed register(Feed feed) {
+        allFeeds.add(feed);
+        return feed;
+    }
+
+    //READ
+
+    //At most one of the categories may be given, without any the global feed is returned
+    public List<SimpleResourceDTO> newest(FormatCategory formatCategory, SubCategory subCategory) {
+        return select(newest, newestByFormat, newestBySub, formatCategory, subCategory).snapshot();
+    }
+
+    public List<SimpleResourceDTO> updated(FormatCategory formatCategory, SubCategory subCategory) {
+        return select(updated, updatedByFormat, updatedBySub, formatCategory, subCategory).snapshot();
+    }
+
+    private Feed select(Feed global, Map<FormatCategory, Feed> byFormat, Map<SubCategory, Feed> bySub,
+                        FormatCategory formatCategory, SubCategory subCategory) {
+        if (formatCategory != null && subCategory != null) {
+            throw new IllegalArgumentException("A feed can be filtered on either a format or a sub category, not both");
+        }
+        if (formatCategory != null) {
+            return byFormat.get(formatCategory);
+        }
+        if (subCategory != null) {
+            return bySub.get(subCategory);
+        }
+        return global;
+    }
+
+    //WRITE
+    @Override
+    public void put(Resource resource) {
+        if (resource == null || resource.getId() == null) {
+            return;
+        }
+        Entry entry = new Entry(resource.getId(), convertToResourceDTO.convert(resource));
+        allFeeds.forEach(feed -> feed.upsert(entry));
+    }
+
+    @Override
+    public void remove(Long resourceId) {
+        allFeeds.forEach(feed -> feed.remove(resourceId));
+    }
+
+    //The contributor is embedded in every entry, so a changed contributor is patched in place
+    public void updateContributor(SimpleContributorDTO contributor) {
+        if (contributor == null || contributor.contributorId() == null) {
+            return;
+        }
+        allFeeds.forEach(feed -> feed.replaceWhere(
+                dto -> dto.simpleContributorDTO() != null && contributor.contributorId().equals(dto.simpleContributorDTO().contributorId()),
+                dto -> new SimpleResourceDTO(dto.learningId(), dto.learningResourceLink(), dto.title(), dto.formatCategory(),
+                        dto.subCategory(), dto.description(), contributor, dto.createdAt(), dto.modifiedAt(),
+                        dto.likeCount(), dto.isLikedByCurrentUser())));
+    }
+
+    //A deleted contributor may take resources with it, the affected feeds reload instead of guessing
+    public void invalidateContributor(Long contributorId) {
+        if (contributorId == null) {
+            return;
+        }
+        allFeeds.forEach(feed -> feed.invalidateWhere(
+                dto -> dto.simpleContributorDTO() != null && contributorId.equals(dto.simpleContributorDTO().contributorId())));
+    }
+
+    //Entries hold the flushed like_count, the LikeCounter tells us whenever that column moves
+    @Override
+    public void flushed(Integer learningId, int delta) {
+        allFeeds.forEach(feed -> feed.replaceWhere(
+                dto -> learningId.equals(dto.learningId()),
+                dto -> dto.withLikes((dto.likeCount() == null ? 0 : dto.likeCount()) + delta, dto.isLikedByCurrentUser())));
+    }
+
+    @Override
+    public void reconciled() {
+        allFeeds.forEach(feed -> feed.invalidateWhere(dto -> true));
+    }
+
+    /**
+     * One bounded, sorted feed. Writes are rare and the feed is small,
+     * so every write rebuilds an immutable snapshot and reads just hand that out.
+     */
+    private class Feed {
+        private final ResourceSort sort;
+        private final FormatCategory formatCategory;
+        private final SubCategory subCategory;
+        private final Comparator<Entry> order;
+        private final List<Entry> entries = new ArrayList<>(FEED_SIZE + 1);
+        //True when the database holds more matching resources than fit in the feed
+        private boolean truncated;
+        private boolean stale;
+        private volatile List<SimpleResourceDTO> snapshot = List.of();
+
+        private Feed(ResourceSort sort, FormatCategory formatCategory, SubCategory subCategory) {
+            this.sort = sort;
+            this.formatCategory = formatCategory;
+            this.subCategory = subCategory;
+            Function<SimpleResourceDTO, LocalDateTime> timestamp = sort == ResourceSort.UPDATED
+                    ? SimpleResourceDTO::modifiedAt
+                    : SimpleResourceDTO::createdAt;
+            this.order = Comparator.comparing((Entry entry) -> timestamp.apply(entry.dto()), Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Entry::id, Comparator.reverseOrder());
+        }
+
+        private boolean accepts(SimpleResourceDTO dto) {
+            return (formatCategory == null || formatCategory == dto.formatCategory())
+                    && (subCategory == null || subCategory == dto.subCategory());
+        }
+
+        private List<SimpleResourceDTO> snapshot() {
+            synchronized (this) {
+                if (stale) {
+                    reload();
+                }
+            }
+            return snapshot;
+        }
+
+        //Holds the feed lock during the query, so a write that commits meanwhile is applied after the reload, not lost
+        private synchronized void reload() {
+            ResourceQueryDTO query = new ResourceQueryDTO(
+                    formatCategory == null ? Set.of() : Set.of(formatCategory),
+                    subCategory == null ? Set.of() : Set.of(subCategory),
+                    null, null, null, null, sort, 0, FEED_SIZE);
+            List<ResourceRowDTO> rows = resourceDAO.query(query);
+            entries.clear();
+            rows.stream()
+                    .limit(FEED_SIZE)
+                    .forEach(row -> entries.add(new Entry(row.id(), row.toSimpleResourceDTO())));
+            truncated = rows.size() > FEED_SIZE;
+            stale = false;
+            publish();
+        }
+
+        //Replaces (and re-sorts) the entry if it is already in the feed, an update may also move it out of this category
+        private synchronized void upsert(Entry entry) {
+            boolean present = entries.removeIf(existing -> existing.id().equals(entry.id()));
+            if (!accepts(entry.dto())) {
+                if (present) {
+                    stale = stale || truncated;
+                    publish();
+                }
+                return;
+            }
+            int position = 0;
+            while (position < entries.size() && order.compare(entries.get(position), entry) < 0) {
+                position++;
+            }
+            if (position == FEED_SIZE) {
+                truncated = true;
+                return;
+            }
+            entries.add(position, entry);
+            if (entries.size() > FEED_SIZE) {
+                entries.remove(FEED_SIZE);
+                truncated = true;
+            }
+            publish();
+        }
+
+        private synchronized void remove(Long id) {
+            if (entries.removeIf(entry -> entry.id().equals(id))) {
+                //The next resource in line is not in memory, fetch it on the next read
+                stale = stale || truncated;
+                publish();
+            }
+        }
+
+        private synchronized void replaceWhere(Predicate<SimpleResourceDTO> match, UnaryOperator<SimpleResourceDTO> replacement) {
+            boolean changed = false;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (match.test(entry.dto())) {
+                    entries.set(i, new Entry(entry.id(), replacement.apply(entry.dto())));
+                    changed = true;
+                }
+            }
+            if (changed) {
+                publish();
+            }
+        }
+
+        private synchronized void invalidateWhere(Predicate<SimpleResourceDTO> match) {
+            if (entries.stream().anyMatch(entry -> match.test(entry.dto()))) {
+                stale = true;
+            }
+        }
+
+        private void publish() {
+            snapshot = entries.stream().map(Entry::dto).toList();
+        }
+    }
+}
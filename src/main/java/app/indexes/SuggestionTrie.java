@@ -0,0 +1,430 @@
+package app.indexes;
+
+import app.caches.LikeCounter;
+import app.daos.ContributorDAO;
+import app.daos.ResourceDAO;
+import app.dtos.SuggestionDTO;
+import app.entities.Contributor;
+import app.entities.Resource;
+import app.enums.SuggestionType;
+import app.utils.TitleUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie over resource titles and contributor names for search-as-you-type.
+ * Titles are indexed from the start of every word, so "str" finds "Java Streams".
+ * Every node keeps the TOP_K most popular completions below it (likes for resources, contributions for contributors),
+ * so a lookup walks at most the length of the prefix and copies one small array, whatever the size of the catalog.
+ * Writes update the nodes on the changed paths only.
+ */
+public class SuggestionTrie implements IResourceIndex, LikeCounter.FlushListener {
+    public static final int TOP_K = 10;
+    //Nobody types further than this, longer keys would only cost memory
+    private static final int MAX_KEY_LENGTH = 40;
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingInt(Suggestion::popularity).reversed()
+            .thenComparing(Suggestion::text)
+            .thenComparing(suggestion -> suggestion.ref().type())
+            .thenComparing(suggestion -> suggestion.ref().id());
+    private static SuggestionTrie instance;
+
+    private final ResourceDAO resourceDAO;
+    private final Node root = new Node("");
+    private final Map<Ref, Suggestion> suggestions = new HashMap<>();
+    private final Map<Ref, Set<String>> keysByRef = new HashMap<>();
+    private final Map<Integer, Long> resourceIdByLearningId = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Ref(SuggestionType type, Long id) {
+    }
+
+    private record Suggestion(Ref ref, String text, Integer learningId, int popularity) {
+    }
+
+    //label is the edge from the parent, children are kept sorted by the first character of their label
+    private static final class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private List<Suggestion> terminals = List.of();
+        private Suggestion[] top = NO_SUGGESTIONS;
+
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+
+    //Package-private so tests can start from an empty trie, the DAO is only used to reload after a reconcile
+    SuggestionTrie(ResourceDAO resourceDAO) {
+        this.resourceDAO = resourceDAO;
+    }
+
+    public static synchronized SuggestionTrie getInstance(ResourceDAO resourceDAO, ContributorDAO contributorDAO) {
+        if (instance == null) {
+            instance = new SuggestionTrie(resourceDAO);
+            instance.loadResources();
+            for (Object[] row : contributorDAO.findAllNames()) {
+                instance.putContributor((Long) row[0], (String) row[1], (String) row[2], (Integer) row[3]);
+            }
+            LikeCounter.getInstance(resourceDAO).addListener(instance);
+        }
+        return instance;
+    }
+
+    private void loadResources() {
+        for (Object[] row : resourceDAO.findAllSuggestionRows()) {
+            putResource((Long) row[0], (Integer) row[1], (String) row[2], (Integer) row[3]);
+        }
+    }
+
+    //READ
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = TitleUtils.key(prefix);
+        if (key == null || key.isEmpty()) {
+            return List.of();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            key = key.substring(0, MAX_KEY_LENGTH);
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < key.length()) {
+                Node child = child(node, key.charAt(matched));
+                if (child == null) {
+                    return List.of();
+                }
+                int common = commonPrefix(child.label, key, matched);
+                if (matched + common == key.length()) {
+                    //The prefix ends on this edge, everything below the child completes it
+                    node = child;
+                    break;
+                }
+                if (common < child.label.length()) {
+                    return List.of();
+                }
+                node = child;
+                matched += common;
+            }
+            return Arrays.stream(node.top)
+                    .limit(limit)
+                    .map(suggestion -> new SuggestionDTO(suggestion.ref().type(), suggestion.text(),
+                            suggestion.learningId(), suggestion.popularity()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Root included, so tests can see edges split on insert and merged again on delete
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return count(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int count(Node node) {
+        int count = 1;
+        for (Node child : node.children) {
+            count += count(child);
+        }
+        return count;
+    }
+
+    //WRITE
+    @Override
+    public void put(Resource resource) {
+        if (resource == null || resource.getId() == null) {
+            return;
+        }
+        putResource(resource.getId(), resource.getLearningId(), resource.getTitle(), resource.getLikeCount());
+    }
+
+    @Override
+    public void remove(Long resourceId) {
+        lock.writeLock().lock();
+        try {
+            Suggestion removed = unindex(new Ref(SuggestionType.RESOURCE, resourceId));
+            if (removed != null && removed.learningId() != null) {
+                resourceIdByLearningId.remove(removed.learningId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putContributor(Contributor contributor) {
+        if (contributor == null || contributor.getId() == null) {
+            return;
+        }
+        putContributor(contributor.getId(), contributor.getGithubProfile(), contributor.getScreenName(), contributor.getContributions());
+    }
+
+    public void removeContributor(Long contributorId) {
+        lock.writeLock().lock();
+        try {
+            unindex(new Ref(SuggestionType.CONTRIBUTOR, contributorId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Popularity of a resource is its flushed like_count, so it moves whenever the LikeCounter writes the column
+    @Override
+    public void flushed(Integer learningId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Long resourceId = resourceIdByLearningId.get(learningId);
+            Suggestion current = resourceId == null ? null : suggestions.get(new Ref(SuggestionType.RESOURCE, resourceId));
+            if (current != null) {
+                index(new Suggestion(current.ref(), current.text(), current.learningId(), current.popularity() + delta),
+                        keysByRef.get(current.ref()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reconciled() {
+        loadResources();
+    }
+
+    private void putResource(Long id, Integer learningId, String title, Integer likeCount) {
+        Set<String> keys = new LinkedHashSet<>();
+        String titleKey = TitleUtils.key(title);
+        if (titleKey != null) {
+            for (int i = 0; i < titleKey.length(); i++) {
+                if (i == 0 || titleKey.charAt(i - 1) == ' ') {
+                    keys.add(truncate(titleKey.substring(i)));
+                }
+            }
+        }
+        Suggestion suggestion = new Suggestion(new Ref(SuggestionType.RESOURCE, id), title, learningId,
+                likeCount == null ? 0 : likeCount);
+        lock.writeLock().lock();
+        try {
+            index(suggestion, keys);
+            if (learningId != null) {
+                resourceIdByLearningId.put(learningId, id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putContributor(Long id, String githubProfile, String screenName, Integer contributions) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String name : new String[]{githubProfile, screenName}) {
+            if (name != null && !name.isBlank()) {
+                keys.add(truncate(TitleUtils.key(name)));
+            }
+        }
+        String text = githubProfile != null && !githubProfile.isBlank() ? githubProfile : screenName;
+        Suggestion suggestion = new Suggestion(new Ref(SuggestionType.CONTRIBUTOR, id), text, null,
+                contributions == null ? 0 : contributions);
+        lock.writeLock().lock();
+        try {
+            index(suggestion, keys);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    //Replaces whatever was indexed for the same ref, unchanged suggestions are left alone
+    private void index(Suggestion suggestion, Set<String> keys) {
+        Suggestion existing = suggestions.get(suggestion.ref());
+        if (suggestion.equals(existing) && keys.equals(keysByRef.get(suggestion.ref()))) {
+            return;
+        }
+        unindex(suggestion.ref());
+        if (keys.isEmpty()) {
+            return;
+        }
+        for (String key : keys) {
+            insert(key, suggestion);
+        }
+        suggestions.put(suggestion.ref(), suggestion);
+        keysByRef.put(suggestion.ref(), keys);
+    }
+
+    private Suggestion unindex(Ref ref) {
+        Set<String> keys = keysByRef.remove(ref);
+        if (keys != null) {
+            for (String key : keys) {
+                delete(key, ref);
+            }
+        }
+        return suggestions.remove(ref);
+    }
+
+    private void insert(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = child(node, key.charAt(matched));
+            if (child == null) {
+                child = new Node(key.substring(matched));
+                addChild(node, child);
+                path.add(child);
+                node = child;
+                break;
+            }
+            int common = commonPrefix(child.label, key, matched);
+            if (common < child.label.length()) {
+                //The key leaves this edge halfway: split it, the existing child moves one level down
+                Node middle = new Node(child.label.substring(0, common));
+                replaceChild(node, middle);
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            matched += common;
+        }
+        if (node.terminals.isEmpty()) {
+            node.terminals = new ArrayList<>();
+        }
+        node.terminals.add(suggestion);
+        for (int i = path.size() - 1; i >= 0; i--) {
+            recomputeTop(path.get(i));
+        }
+    }
+
+    private void delete(String key, Ref ref) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = child(node, key.charAt(matched));
+            if (child == null || !key.startsWith(child.label, matched)) {
+                return;
+            }
+            path.add(child);
+            node = child;
+            matched += child.label.length();
+        }
+        if (node.terminals.isEmpty()) {
+            return;
+        }
+        if (!node.terminals.removeIf(terminal -> terminal.ref().equals(ref))) {
+            return;
+        }
+
+        //Bottom-up: drop nodes that became empty, merge nodes left with a single child, re-rank the rest
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            Node parent = path.get(i - 1);
+            if (current.terminals.isEmpty() && current.children.length == 0) {
+                removeChild(parent, current);
+            } else if (current.terminals.isEmpty() && current.children.length == 1) {
+                Node only = current.children[0];
+                only.label = current.label + only.label;
+                replaceChild(parent, only);
+            } else {
+                recomputeTop(current);
+            }
+        }
+        recomputeTop(root);
+    }
+
+    /**
+     * Merges the node's own completions with the top lists of its children.
+     * A resource can sit below one node under two keys ("java" and "javascript" in one title),
+     * it is counted once, so such a node may show one completion less than it could.
+     */
+    private void recomputeTop(Node node) {
+        List<Suggestion> candidates = new ArrayList<>(node.terminals);
+        for (Node child : node.children) {
+            Collections.addAll(candidates, child.top);
+        }
+        candidates.sort(RANKING);
+        List<Suggestion> top = new ArrayList<>(TOP_K);
+        Set<Ref> seen = new HashSet<>();
+        for (Suggestion candidate : candidates) {
+            if (seen.add(candidate.ref())) {
+                top.add(candidate);
+                if (top.size() == TOP_K) {
+                    break;
+                }
+            }
+        }
+        node.top = top.toArray(NO_SUGGESTIONS);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = 0;
+        while (length < label.length() && offset + length < key.length()
+                && label.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int childIndex(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midFirst = node.children[mid].label.charAt(0);
+            if (midFirst < first) {
+                low = mid + 1;
+            } else if (midFirst > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static Node child(Node node, char first) {
+        int index = childIndex(node, first);
+        return index >= 0 ? node.children[index] : null;
+    }
+
+    private static void addChild(Node parent, Node child) {
+        int insertAt = -(childIndex(parent, child.label.charAt(0)) + 1);
+        Node[] children = new Node[parent.children.length + 1];
+        System.arraycopy(parent.children, 0, children, 0, insertAt);
+        children[insertAt] = child;
+        System.arraycopy(parent.children, insertAt, children, insertAt + 1, parent.children.length - insertAt);
+        parent.children = children;
+    }
+
+    //The replacement starts with the same character, so it takes the old child's place in the sorted array
+    private static void replaceChild(Node parent, Node replacement) {
+        parent.children[childIndex(parent, replacement.label.charAt(0))] = replacement;
+    }
+
+    private static void removeChild(Node parent, Node child) {
+        int index = childIndex(parent, child.label.charAt(0));
+        Node[] children = new Node[parent.children.length - 1];
+        System.arraycopy(parent.children, 0, children, 0, index);
+        System.arraycopy(parent.children, index + 1, children, index, parent.children.length - index - 1);
+        parent.children = children;
+    }
+}
@@ -0,0 +1,95 @@
+package app.indexes;
+
+import app.daos.ResourceDAO;
+import app.entities.Resource;
+import app.utils.TitleUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Normalized title -> ids of the resources with that title, so a title lookup is one hash probe.
+ * Titles are not unique, every match is kept and returned in id order.
+ */
+public class TitleIndex implements IResourceIndex {
+    private static TitleIndex instance;
+
+    private final Map<String, TreeSet<Long>> idsByKey = new HashMap<>();
+    private final Map<Long, String> keyById = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TitleIndex() {
+
+    }
+
+    public static synchronized TitleIndex getInstance(ResourceDAO resourceDAO) {
+        if (instance == null) {
+            instance = new TitleIndex();
+            for (Object[] row : resourceDAO.findAllTitleKeys()) {
+                String key = row[1] != null ? (String) row[1] : TitleUtils.key((String) row[2]);
+                instance.index((Long) row[0], key);
+            }
+        }
+        return instance;
+    }
+
+    //READ
+    public List<Long> find(String title) {
+        String key = TitleUtils.key(title);
+        lock.readLock().lock();
+        try {
+            TreeSet<Long> ids = idsByKey.get(key);
+            return ids == null ? List.of() : List.copyOf(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //WRITE
+    @Override
+    public void put(Resource resource) {
+        if (resource == null || resource.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index(resource.getId(), TitleUtils.key(resource.getTitle()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long resourceId) {
+        lock.writeLock().lock();
+        try {
+            unindex(resourceId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Long id, String key) {
+        unindex(id);
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        idsByKey.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+        keyById.put(id, key);
+    }
+
+    private void unindex(Long id) {
+        String key = keyById.remove(id);
+        if (key == null) {
+            return;
+        }
+        TreeSet<Long> ids = idsByKey.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            idsByKey.remove(key);
+        }
+    }
+}
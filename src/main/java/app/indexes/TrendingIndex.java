@@ -0,0 +1,258 @@
+package app.indexes;
+
+import app.daos.ResourceDAO;
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Trending resources, globally and per FormatCategory/SubCategory, ranked by exponentially decayed like counts.
+ * Forward decay: a like given at time t adds e^((t - landmark) / tau) to its resource, instead of every score
+ * shrinking as time passes. All scores decay at the same rate, so the ranking only changes when a like comes in or
+ * goes away, and each of those is one O(1) score update plus O(log K) in the bounded rankings of its scopes.
+ * The landmark moves forward now and then so the weights never overflow.
+ */
+public class TrendingIndex implements IResourceIndex {
+    public static final int TOP_K = 50;
+    private static final Duration HALF_LIFE = Duration.ofHours(24);
+    private static final double TAU_SECONDS = HALF_LIFE.toSeconds() / Math.log(2);
+    //e^50 is far from the double limit, and renormalizing is cheap enough to do every 50 tau (about 35 days)
+    private static final double MAX_EXPONENT = 50;
+    //Older likes weigh less than 1/1000 of a new one, they are left out when seeding
+    private static final int SEED_HALF_LIVES = 10;
+    //A score this small (relative to one like now) counts as no score, it is what floating point leaves after an unlike
+    private static final double NEGLIGIBLE = 1e-9;
+    private static TrendingIndex instance;
+
+    private final Map<Long, Categories> categoriesById = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Ranking global = new Ranking(entry -> true);
+    private final Map<FormatCategory, Ranking> byFormat = new EnumMap<>(FormatCategory.class);
+    private final Map<SubCategory, Ranking> bySub = new EnumMap<>(SubCategory.class);
+    private LocalDateTime landmark;
+
+    private record Categories(FormatCategory formatCategory, SubCategory subCategory) {
+    }
+
+    //Mutable on purpose: a score is only changed while the entry is out of every ranking it sits in
+    private static final class Entry {
+        private final Long id;
+        private Categories categories;
+        private double score;
+
+        private Entry(Long id, Categories categories) {
+            this.id = id;
+            this.categories = categories;
+        }
+    }
+
+    private static final Comparator<Entry> BY_SCORE = Comparator.comparingDouble((Entry entry) -> entry.score).reversed()
+            .thenComparing(entry -> entry.id, Comparator.reverseOrder());
+
+    //Package-private so tests can start from a landmark of their choosing
+    TrendingIndex(LocalDateTime landmark) {
+        this.landmark = landmark;
+        for (FormatCategory format : FormatCategory.values()) {
+            byFormat.put(format, new Ranking(entry -> entry.categories != null && entry.categories.formatCategory() == format));
+        }
+        for (SubCategory sub : SubCategory.values()) {
+            bySub.put(sub, new Ranking(entry -> entry.categories != null && entry.categories.subCategory() == sub));
+        }
+    }
+
+    public static synchronized TrendingIndex getInstance(ResourceDAO resourceDAO) {
+        if (instance == null) {
+            LocalDateTime now = LocalDateTime.now();
+            TrendingIndex index = new TrendingIndex(now);
+            for (Object[] row : resourceDAO.findAllCategories()) {
+                index.categoriesById.put((Long) row[0], new Categories((FormatCategory) row[1], (SubCategory) row[2]));
+            }
+            List<Object[]> scores = resourceDAO.findDecayedLikeScores(now, TAU_SECONDS,
+                    now.minus(HALF_LIFE.multipliedBy(SEED_HALF_LIVES)));
+            for (Object[] row : scores) {
+                index.add(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue());
+            }
+            instance = index;
+        }
+        return instance;
+    }
+
+    //READ
+
+    //At most one of the categories may be given, without any the global ranking is returned
+    public synchronized List<Long> trending(FormatCategory formatCategory, SubCategory subCategory, int limit) {
+        if (formatCategory != null && subCategory != null) {
+            throw new IllegalArgumentException("Trending can be filtered on either a format or a sub category, not both");
+        }
+        Ranking ranking = formatCategory != null ? byFormat.get(formatCategory)
+                : subCategory != null ? bySub.get(subCategory)
+                : global;
+        return ranking.top.stream()
+                .limit(limit)
+                .map(entry -> entry.id)
+                .toList();
+    }
+
+    //WRITE
+
+    //Called by UserLikeDAO after a like is committed, with the time the like was stored with
+    public synchronized void liked(Long resourceId, LocalDateTime likedAt) {
+        add(resourceId, weight(likedAt));
+    }
+
+    //The weight a like got is fixed by its timestamp, so an unlike takes back exactly that
+    public synchronized void unliked(Long resourceId, LocalDateTime likedAt) {
+        add(resourceId, -weight(likedAt));
+    }
+
+    @Override
+    public synchronized void put(Resource resource) {
+        if (resource == null || resource.getId() == null) {
+            return;
+        }
+        Categories categories = new Categories(resource.getFormatCategory(), resource.getSubCategory());
+        categoriesById.put(resource.getId(), categories);
+        Entry entry = entries.get(resource.getId());
+        if (entry != null && !categories.equals(entry.categories)) {
+            //Leaves the rankings of the old categories, joins the new ones
+            List<Ranking> left = scopesOf(entry);
+            entry.categories = categories;
+            List<Ranking> joined = scopesOf(entry);
+            left.removeAll(joined);
+            for (Ranking ranking : left) {
+                ranking.leave(entry);
+                ranking.refillIfShort();
+            }
+            joined.forEach(ranking -> ranking.offer(entry));
+        }
+    }
+
+    @Override
+    public synchronized void remove(Long resourceId) {
+        categoriesById.remove(resourceId);
+        Entry entry = entries.remove(resourceId);
+        if (entry != null) {
+            for (Ranking ranking : scopesOf(entry)) {
+                ranking.leave(entry);
+                ranking.refillIfShort();
+            }
+        }
+    }
+
+    private void add(Long resourceId, double delta) {
+        if (resourceId == null) {
+            return;
+        }
+        Entry entry = entries.computeIfAbsent(resourceId, id -> new Entry(id, categoriesById.get(id)));
+        List<Ranking> scopes = scopesOf(entry);
+        List<Ranking> heldIt = new ArrayList<>(scopes.size());
+        for (Ranking ranking : scopes) {
+            if (ranking.leave(entry)) {
+                heldIt.add(ranking);
+            }
+        }
+
+        entry.score += delta;
+        if (entry.score <= NEGLIGIBLE * weight(LocalDateTime.now())) {
+            entries.remove(resourceId);
+            heldIt.forEach(Ranking::refillIfShort);
+            return;
+        }
+        for (Ranking ranking : scopes) {
+            ranking.offer(entry);
+            //A ranked entry that lost score may now be beaten by one that is not ranked
+            if (delta < 0 && heldIt.contains(ranking) && ranking.top.size() == TOP_K && ranking.top.last() == entry) {
+                ranking.refill();
+            }
+        }
+        renormalizeIfNeeded();
+    }
+
+    private List<Ranking> scopesOf(Entry entry) {
+        List<Ranking> scopes = new ArrayList<>(3);
+        scopes.add(global);
+        if (entry.categories != null) {
+            if (entry.categories.formatCategory() != null) {
+                scopes.add(byFormat.get(entry.categories.formatCategory()));
+            }
+            if (entry.categories.subCategory() != null) {
+                scopes.add(bySub.get(entry.categories.subCategory()));
+            }
+        }
+        return scopes;
+    }
+
+    private double weight(LocalDateTime time) {
+        return Math.exp(Duration.between(landmark, time).toMillis() / 1000.0 / TAU_SECONDS);
+    }
+
+    //Scales every score down to a landmark of now, the order stays the same but the rankings are rebuilt to be safe
+    private void renormalizeIfNeeded() {
+        LocalDateTime now = LocalDateTime.now();
+        if (Duration.between(landmark, now).toMillis() / 1000.0 / TAU_SECONDS < MAX_EXPONENT) {
+            return;
+        }
+        double factor = 1 / weight(now);
+        entries.values().forEach(entry -> entry.score *= factor);
+        landmark = now;
+        global.refill();
+        byFormat.values().forEach(Ranking::refill);
+        bySub.values().forEach(Ranking::refill);
+    }
+
+    /**
+     * The TOP_K best entries of one scope. When it holds fewer than TOP_K, it holds every entry of the scope,
+     * so a ranking only has to look at all entries again when a ranked entry drops out or loses score.
+     */
+    private class Ranking {
+        private final Predicate<Entry> inScope;
+        private final TreeSet<Entry> top = new TreeSet<>(BY_SCORE);
+
+        private Ranking(Predicate<Entry> inScope) {
+            this.inScope = inScope;
+        }
+
+        private boolean leave(Entry entry) {
+            return top.remove(entry);
+        }
+
+        private void offer(Entry entry) {
+            top.add(entry);
+            if (top.size() > TOP_K) {
+                top.pollLast();
+            }
+        }
+
+        private void refillIfShort() {
+            if (top.size() == TOP_K - 1) {
+                refill();
+            }
+        }
+
+        private void refill() {
+            PriorityQueue<Entry> best = new PriorityQueue<>(BY_SCORE.reversed());
+            for (Entry entry : entries.values()) {
+                if (inScope.test(entry)) {
+                    best.add(entry);
+                    if (best.size() > TOP_K) {
+                        best.poll();
+                    }
+                }
+            }
+            top.clear();
+            top.addAll(best);
+        }
+    }
+}
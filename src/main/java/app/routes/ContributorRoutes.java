@@ -3,20 +3,26 @@ package app.routes;
 import app.controllers.ContributorController;
 import app.security.enums.Role;
 import app.services.ContributorService;
+import app.services.ResourceService;
 import io.javalin.apibuilder.EndpointGroup;
 
+import static app.utils.ConditionalGet.withETag;
 import static io.javalin.apibuilder.ApiBuilder.*;
 
 public class ContributorRoutes {
     private final ContributorService contributorService = new ContributorService();
-    private final ContributorController contributorController = new ContributorController(contributorService);
+    private final ResourceService resourceService = new ResourceService();
+    private final ContributorController contributorController = new ContributorController(contributorService, resourceService);
 
     //TODO: config.router.contextPath = "/api/learn_v1" <--base path for all endpoints
     public EndpointGroup getContributorRoutes() {
         return () -> {
             path("/contributors", () -> {
-                get(ctx -> contributorController.handleContributorQuery(ctx), Role.ANYONE);
-                get("/contributions", ctx -> contributorController.contributorsByMostContributions(ctx), Role.ANYONE);
+                get(withETag(ctx -> contributorController.handleContributorQuery(ctx)), Role.ANYONE);
+                get("/contributions", withETag(ctx -> contributorController.contributorsByMostContributions(ctx)), Role.ANYONE);
+                get("/leaderboard", withETag(ctx -> contributorController.leaderboard(ctx)), Role.ANYONE);
+                get("/leaderboard/{name}", withETag(ctx -> contributorController.leaderboardRank(ctx)), Role.ANYONE);
+                get("/{name}/resources", withETag(ctx -> contributorController.resourcesOfAContributor(ctx)), Role.ANYONE);
                 put("/{name}", ctx -> contributorController.updateAContributor(ctx), Role.USER, Role.ADMIN);
                 delete("/{name}", ctx -> contributorController.deleteAContributor(ctx), Role.USER, Role.ADMIN);
             });
@@ -6,6 +6,7 @@ import app.services.ResourceService;
 import app.security.enums.Role;
 import io.javalin.apibuilder.EndpointGroup;
 
+import static app.utils.ConditionalGet.withETag;
 import static io.javalin.apibuilder.ApiBuilder.*;
 
 public class ResourceRoutes {
@@ -19,22 +20,34 @@ public class ResourceRoutes {
 
         return () -> {
             path("/resources", () -> {
-                get(ctx -> resourceController.getAllResources(ctx), Role.ANYONE);
-                get("/newest", ctx -> resourceController.getNewestResources(ctx), Role.ANYONE);
-                get("/updated", ctx -> resourceController.getRecentlyUpdatedResources(ctx), Role.ANYONE);
-                get("/id/{id}", ctx -> resourceController.getResourceById(ctx), Role.ANYONE);
-                get("/learning/{learning_id}", ctx -> resourceController.getResourceByLearningId(ctx), Role.ANYONE);
-                get("/format/{format_category}", ctx -> resourceController.getResourcesByFormatCategory(ctx), Role.USER, Role.ADMIN);
-                get("/sub/{sub_category}", ctx -> resourceController.getResourcesBySubCategory(ctx), Role.USER, Role.ADMIN);
-                get("/title/{title}", ctx -> resourceController.getResourceByTitle(ctx), Role.ANYONE);
-                get("/contributor/{name}", ctx -> resourceController.getResourcesByContributor(ctx), Role.ANYONE);
-                get("/search/{keyword}", ctx -> resourceController.getResourcesByKeyword(ctx), Role.ANYONE);
+                get(withETag(ctx -> resourceController.getAllResources(ctx)), Role.ANYONE);
+                get("/newest", withETag(ctx -> resourceController.getNewestResources(ctx)), Role.ANYONE);
+                get("/updated", withETag(ctx -> resourceController.getRecentlyUpdatedResources(ctx)), Role.ANYONE);
+                get("/trending", withETag(ctx -> resourceController.getTrendingResources(ctx)), Role.ANYONE);
+                get("/id/{id}", withETag(ctx -> resourceController.getResourceById(ctx)), Role.ANYONE);
+                get("/id/{id}/related", withETag(ctx -> resourceController.getRelatedResources(ctx)), Role.ANYONE);
+                get("/learning/{learning_id}", withETag(ctx -> resourceController.getResourceByLearningId(ctx)), Role.ANYONE);
+                get("/format/{format_category}", withETag(ctx -> resourceController.getResourcesByFormatCategory(ctx)), Role.USER, Role.ADMIN);
+                get("/sub/{sub_category}", withETag(ctx -> resourceController.getResourcesBySubCategory(ctx)), Role.USER, Role.ADMIN);
+                get("/title/{title}", withETag(ctx -> resourceController.getResourceByTitle(ctx)), Role.ANYONE);
+                get("/contributor/{name}", withETag(ctx -> resourceController.getResourcesByContributor(ctx)), Role.ANYONE);
+                get("/search/{keyword}", withETag(ctx -> resourceController.getResourcesByKeyword(ctx)), Role.ANYONE);
+                get("/filter", withETag(ctx -> resourceController.filterResources(ctx)), Role.USER, Role.ADMIN);
+                get("/query", withETag(ctx -> resourceController.queryResources(ctx)), Role.USER, Role.ADMIN);
+                get("/facets", withETag(ctx -> resourceController.getFacetCounts(ctx)), Role.ANYONE);
+                get("/suggest", withETag(ctx -> resourceController.suggest(ctx)), Role.ANYONE);
+                get("/cache/stats", ctx -> resourceController.getCacheStats(ctx), Role.ADMIN);
                 post(ctx -> resourceController.createResource(ctx), Role.USER, Role.ADMIN);
+                post("/bulk", ctx -> resourceController.createResources(ctx), Role.USER, Role.ADMIN);
                 put("/{learning_id}", ctx -> resourceController.updateResource(ctx), Role.USER, Role.ADMIN);
                 delete("/{learning_id}", ctx -> resourceController.deleteResource(ctx), Role.USER, Role.ADMIN);
                 post("/{id}/like", ctx -> resourceController.likeResource(ctx), Role.USER, Role.ADMIN);
                 delete("/{id}/like", ctx -> resourceController.unlikeResource(ctx), Role.USER, Role.ADMIN);
             });
+            path("/admin/resources", () -> {
+                get("/export", ctx -> resourceController.exportResources(ctx), Role.ADMIN);
+                post("/import", ctx -> resourceController.importResources(ctx), Role.ADMIN);
+            });
         };
     }
 
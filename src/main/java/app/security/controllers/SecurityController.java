@@ -1,7 +1,12 @@
 package app.security.controllers;
 
+import app.caches.CatalogVersion;
 import app.configs.HibernateConfig;
+import app.daos.ContributorDAO;
+import app.daos.ResourceDAO;
 import app.exceptions.ApiException;
+import app.indexes.ContributorLeaderboard;
+import app.indexes.SuggestionTrie;
 import app.security.daos.SecurityDAO;
 import app.security.dtos.SignupRequestDTO;
 import app.security.entities.User;
@@ -97,6 +102,12 @@ public class SecurityController implements IAuthenticationController {
                 validateSignup(signup);                         // ensure username/password + profile field
 
                 User created = securityDAO.createUserWithContributor(signup); // calls createUserWithContributor(dto)
+                CatalogVersion.getInstance().bump(); // the new contributor shows up in the contributor lists
+                SuggestionTrie.getInstance(ResourceDAO.getInstance(HibernateConfig.getEntityManagerFactory()),
+                                ContributorDAO.getInstance(HibernateConfig.getEntityManagerFactory()))
+                        .putContributor(created.getContributor()); // and in the typeahead
+                ContributorLeaderboard.getInstance(ContributorDAO.getInstance(HibernateConfig.getEntityManagerFactory()))
+                        .put(created.getContributor()); // and on the leaderboard
 
                 UserDTO tokenUser = new UserDTO(created.getUsername(), Set.of("USER"));
                 String token = createToken(tokenUser);
@@ -1,21 +1,37 @@
 package app.services;
 
+import app.caches.CatalogVersion;
+import app.caches.ResourceCache;
 import app.configs.HibernateConfig;
 import app.converters.ConvertToContributorDTO;
 import app.daos.ContributorDAO;
+import app.daos.ResourceDAO;
+import app.dtos.PageDTO;
 import app.dtos.contributordtos.*;
 import app.entities.Contributor;
+import app.exceptions.ApiException;
+import app.indexes.ContributorLeaderboard;
+import app.indexes.ResourceFeeds;
+import app.indexes.SuggestionTrie;
 import dk.bugelhartmann.UserDTO;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class ContributorService {
     private final EntityManagerFactory EMF = HibernateConfig.getEntityManagerFactory();
     private final ContributorDAO CONTRIBUTOR_DAO = ContributorDAO.getInstance(EMF);
+    private final ResourceCache RESOURCE_CACHE = ResourceCache.getInstance();
+    private final ResourceFeeds RESOURCE_FEEDS = ResourceFeeds.getInstance(ResourceDAO.getInstance(EMF));
+    private final SuggestionTrie SUGGESTION_TRIE = SuggestionTrie.getInstance(ResourceDAO.getInstance(EMF), CONTRIBUTOR_DAO);
+    private final ContributorLeaderboard LEADERBOARD = ContributorLeaderboard.getInstance(CONTRIBUTOR_DAO);
     private final ConvertToContributorDTO convertToContributeDTO = new ConvertToContributorDTO();
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
 
 
     //Empty constructor
@@ -37,36 +53,51 @@ public class ContributorService {
 
     //SERVICE METHODS
 
-    //TODO: GET /contributors <--> get all contributors
-    public GitHubScreenNameListsDTO getAllContributors(){
-        List<GithubProfileDTO> githubList = new ArrayList<>();
-        List<ScreenNameProfileDTO> screeNameList = new ArrayList<>();
-
-        for(Contributor c : CONTRIBUTOR_DAO.retrieveAll()){
-            ProfileDTO x = convertToContributeDTO.convert(c);
-            if(x.githubProfile() != null && !x.githubProfile().isBlank()){
-                githubList.add(new GithubProfileDTO(x.githubProfile(), x.contributions(), x.resources()));
-            } else if(x.screenName() != null && !x.screenName().isBlank()){
-                screeNameList.add(new ScreenNameProfileDTO(x.screenName(), x.contributions(), x.resources()));
-            }
+    //TODO: GET /contributors?page=0&limit=20 <--> get all contributors as summaries
+    public PageDTO<ContributorSummaryDTO> getAllContributors(int page, int limit){
+        validatePage(page, limit);
+        return PageDTO.of(CONTRIBUTOR_DAO.findSummariesByName(page, limit), page, limit, CONTRIBUTOR_DAO.countAll());
+    }
+
+    //TODO: GET /contributors/contributions?page=0&limit=20
+    //The order comes from the leaderboard, only the summaries on the page are queried
+    public PageDTO<ContributorSummaryDTO> sortByMostContributions(int page, int limit){
+        validatePage(page, limit);
+        List<Long> ids = LEADERBOARD.idsInRange(page * limit, limit);
+        Map<Long, ContributorSummaryDTO> byId = CONTRIBUTOR_DAO.findSummariesByIds(ids).stream()
+                .collect(Collectors.toMap(ContributorSummaryDTO::contributorId, Function.identity()));
+        List<ContributorSummaryDTO> content = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return PageDTO.of(content, page, limit, LEADERBOARD.size());
+    }
+
+    //TODO: GET /contributors/leaderboard?page=0&limit=20
+    public PageDTO<LeaderboardEntryDTO> getLeaderboard(int page, int limit){
+        validatePage(page, limit);
+        return PageDTO.of(LEADERBOARD.range(page * limit, limit), page, limit, LEADERBOARD.size());
+    }
+
+    //TODO: GET /contributors/leaderboard/{name}
+    public LeaderboardEntryDTO getLeaderboardRank(ContributorNameDTO contributorNameDTO){
+        if (contributorNameDTO == null || contributorNameDTO.name() == null || contributorNameDTO.name().isBlank()) {
+            throw new IllegalArgumentException("Contributor name is required for a rank");
+        }
+        LeaderboardEntryDTO entry = LEADERBOARD.rankOf(contributorNameDTO.name());
+        if (entry == null) {
+            throw new EntityNotFoundException("No contributor found with name " + contributorNameDTO.name());
         }
-        return new GitHubScreenNameListsDTO(githubList, screeNameList);
+        return entry;
     }
 
-    //TODO: GET /contributors/contributions
-    public GitHubScreenNameListsDTO sortByMostContributions(){
-        List<GithubProfileDTO> githubList = new ArrayList<>();
-        List<ScreenNameProfileDTO> screeNameList = new ArrayList<>();
-
-        for(Contributor c : CONTRIBUTOR_DAO.findByMostContributions()){
-            ProfileDTO x = convertToContributeDTO.convert(c);
-            if(x.githubProfile() != null && !x.githubProfile().isBlank()){
-                githubList.add(new GithubProfileDTO(x.githubProfile(), x.contributions(), x.resources()));
-            } else if(x.screenName() != null && !x.screenName().isBlank()){
-                screeNameList.add(new ScreenNameProfileDTO(x.screenName(), x.contributions(), x.resources()));
-            }
+    private void validatePage(int page, int limit){
+        if(page < 0){
+            throw new IllegalArgumentException("page cannot be negative");
+        }
+        if(limit <= 0){
+            throw new IllegalArgumentException("limit must be a positive number");
         }
-        return new GitHubScreenNameListsDTO(githubList, screeNameList);
     }
 
 
@@ -112,24 +143,40 @@ public class ContributorService {
         }
 
 
-        Contributor contributor = CONTRIBUTOR_DAO.findByName(contributorNameDTO.name());
-        if (contributor == null) {
-            throw new EntityNotFoundException("No contributor found with name " + contributorNameDTO.name());
-        }
+        //A resource create or delete by the same contributor raises its version in between, then it is read again
+        Contributor updatedC = null;
+        for (int attempt = 1; updatedC == null; attempt++) {
+            Contributor contributor = CONTRIBUTOR_DAO.findByName(contributorNameDTO.name());
+            if (contributor == null) {
+                throw new EntityNotFoundException("No contributor found with name " + contributorNameDTO.name());
+            }
 
-        if (!isAdmin && authenticatedContributorId == null) {
-            throw new RuntimeException("You must have a contributor profile to update");
-        }
+            if (!isAdmin && authenticatedContributorId == null) {
+                throw new RuntimeException("You must have a contributor profile to update");
+            }
 
-        //if isAdmin is false and id is not authenticated, this block runs
-        if (!isAdmin && !contributor.getId().equals(authenticatedContributorId)) {
-            throw new RuntimeException("You are not allowed to update this contributor");
-        }
+            //if isAdmin is false and id is not authenticated, this block runs
+            if (!isAdmin && !contributor.getId().equals(authenticatedContributorId)) {
+                throw new RuntimeException("You are not allowed to update this contributor");
+            }
 
-        contributor.setGithubProfile(hasGithub ? profileDTO.githubProfile().trim() : null);
-        contributor.setScreenName(hasScreenName ? profileDTO.screenName().trim() : null);
+            contributor.setGithubProfile(hasGithub ? profileDTO.githubProfile().trim() : null);
+            contributor.setScreenName(hasScreenName ? profileDTO.screenName().trim() : null);
 
-        Contributor updatedC = CONTRIBUTOR_DAO.update(contributor);
+            try {
+                updatedC = CONTRIBUTOR_DAO.update(contributor);
+            } catch (ApiException e) {
+                if (e.getCode() != 409 || attempt == MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+        RESOURCE_CACHE.invalidateContributor(updatedC.getId());
+        RESOURCE_FEEDS.updateContributor(new SimpleContributorDTO(updatedC.getId(), updatedC.getGithubProfile(),
+                updatedC.getScreenName(), updatedC.getContributions()));
+        SUGGESTION_TRIE.putContributor(updatedC);
+        LEADERBOARD.put(updatedC);
+        CatalogVersion.getInstance().bump();
         return convertToContributeDTO.convert(updatedC);
     }
 
@@ -155,7 +202,13 @@ public class ContributorService {
             throw new RuntimeException("You are not allowed to delete this contributor");
         }
 
-        return CONTRIBUTOR_DAO.delete(contributor.getId());
+        boolean deleted = CONTRIBUTOR_DAO.delete(contributor.getId());
+        RESOURCE_CACHE.invalidateContributor(contributor.getId());
+        RESOURCE_FEEDS.invalidateContributor(contributor.getId());
+        SUGGESTION_TRIE.removeContributor(contributor.getId());
+        LEADERBOARD.remove(contributor.getId());
+        CatalogVersion.getInstance().bump();
+        return deleted;
     }
 
 
@@ -1,31 +1,93 @@
 package app.services;
 
+import app.caches.CatalogVersion;
+import app.caches.LikeCounter;
+import app.caches.ResourceCache;
 import app.configs.HibernateConfig;
 import app.converters.ConvertToResourceDTO;
 import app.converters.ResourceToResourceDTO;
 import app.daos.ContributorDAO;
 import app.daos.ResourceDAO;
 import app.daos.UserLikeDAO;
+import app.dtos.categorydtos.FacetCountsDTO;
 import app.dtos.categorydtos.SingleFormatCatDTO;
 import app.dtos.categorydtos.SingleSubCategoryDTO;
+import app.dtos.CursorPageDTO;
 import app.dtos.PageDTO;
+import app.dtos.SliceDTO;
+import app.dtos.SuggestionDTO;
+import app.dtos.cachedtos.CacheStatsDTO;
 import app.dtos.contributordtos.ContributorNameDTO;
 import app.dtos.contributordtos.SimpleContributorDTO;
 import app.dtos.resourcedtos.*;
 import app.entities.Contributor;
 import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.ResourceSort;
+import app.enums.SubCategory;
 import app.exceptions.ApiException;
+import app.indexes.CategoryFacets;
+import app.indexes.CategoryFilterIndex;
+import app.indexes.CoLikeIndex;
+import app.indexes.ContributorLeaderboard;
+import app.indexes.IResourceIndex;
+import app.indexes.KeywordIndex;
+import app.indexes.LinkBloomFilter;
+import app.indexes.ResourceFeeds;
+import app.indexes.SuggestionTrie;
+import app.indexes.TitleIndex;
+import app.indexes.TrendingIndex;
+import app.utils.CursorUtils;
+import app.utils.UrlUtils;
+import app.utils.Utils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ResourceService {
     private final EntityManagerFactory EMF = HibernateConfig.getEntityManagerFactory();
     private final ContributorDAO CONTRIBUTOR_DAO = ContributorDAO.getInstance(EMF);
     private final ResourceDAO RESOURCE_DAO = ResourceDAO.getInstance(EMF);
     private final UserLikeDAO USER_LIKE_DAO = UserLikeDAO.getInstance(EMF);
+    private final ResourceCache RESOURCE_CACHE = ResourceCache.getInstance();
+    private final CatalogVersion CATALOG_VERSION = CatalogVersion.getInstance();
+    private final LikeCounter LIKE_COUNTER = LikeCounter.getInstance(RESOURCE_DAO);
+    private final KeywordIndex KEYWORD_INDEX = KeywordIndex.getInstance(RESOURCE_DAO);
+    private final CategoryFacets CATEGORY_FACETS = CategoryFacets.getInstance(RESOURCE_DAO);
+    private final CategoryFilterIndex CATEGORY_FILTER_INDEX = CategoryFilterIndex.getInstance(RESOURCE_DAO);
+    private final ResourceFeeds RESOURCE_FEEDS = ResourceFeeds.getInstance(RESOURCE_DAO);
+    private final TitleIndex TITLE_INDEX = TitleIndex.getInstance(RESOURCE_DAO);
+    private final SuggestionTrie SUGGESTION_TRIE = SuggestionTrie.getInstance(RESOURCE_DAO, CONTRIBUTOR_DAO);
+    private final LinkBloomFilter LINK_FILTER = LinkBloomFilter.getInstance(RESOURCE_DAO);
+    private final TrendingIndex TRENDING_INDEX = TrendingIndex.getInstance(RESOURCE_DAO);
+    private final CoLikeIndex CO_LIKE_INDEX = CoLikeIndex.getInstance(USER_LIKE_DAO);
+    private final ContributorLeaderboard LEADERBOARD = ContributorLeaderboard.getInstance(CONTRIBUTOR_DAO);
+    private final List<IResourceIndex> RESOURCE_INDEXES = List.of(KEYWORD_INDEX, CATEGORY_FACETS, CATEGORY_FILTER_INDEX, RESOURCE_FEEDS, TITLE_INDEX, SUGGESTION_TRIE, LINK_FILTER, TRENDING_INDEX, CO_LIKE_INDEX);
+    //Keeps IN lists well below the bind parameter limit of the JDBC driver
+    private static final int HYDRATION_BATCH = 1_000;
+    private static final int MAX_BULK_SIZE = 1_000;
+    private static final int MAX_RELATED = 50;
+    //One transaction per chunk: a failed import keeps what was committed, and only one chunk is ever held in memory
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final int MAX_IMPORT_ERRORS = 100;
+    private final ObjectReader EXPORT_LINE_READER = new Utils().getObjectMapper().readerFor(ResourceExportDTO.class);
     private final ConvertToResourceDTO convertToResourceDTO = new ConvertToResourceDTO();
     private final ResourceToResourceDTO resourceToResourceDTO = new ResourceToResourceDTO();
 
@@ -34,41 +96,60 @@ public class ResourceService {
 
     }
 
-    //CREATE
+    //HELPER METHODS
 
-    //TODO: POST resources/
-    public SimpleResourceDTO createResource(SimpleResourceDTO simpleResourceDTO, Long authenticatedContributorId) {
+    //Keeps every in-memory index in step with the resource table, called after each successful write
+    private void reindex(Resource resource) {
+        RESOURCE_INDEXES.forEach(index -> index.put(resource));
+    }
+
+    private void unindex(Long resourceId) {
+        RESOURCE_INDEXES.forEach(index -> index.remove(resourceId));
+    }
+
+    //Returns what is wrong with a resource that is about to be created, or null when it is valid
+    private String validateNewResource(SimpleResourceDTO simpleResourceDTO) {
         if (simpleResourceDTO == null) {
-            throw new IllegalArgumentException("Payload required to create resource");
+            return "Payload required to create resource";
         }
         if (simpleResourceDTO.learningResourceLink() == null || simpleResourceDTO.learningResourceLink().isBlank()) {
-            throw new IllegalArgumentException("learningResourceLink is required");
+            return "learningResourceLink is required";
         }
         if (simpleResourceDTO.title() == null || simpleResourceDTO.title().isBlank()) {
-            throw new IllegalArgumentException("title is required");
+            return "title is required";
         }
         if (simpleResourceDTO.formatCategory() == null) {
-            throw new IllegalArgumentException("formatCategory is required");
+            return "formatCategory is required";
         }
         if (simpleResourceDTO.subCategory() == null) {
-            throw new IllegalArgumentException("subCategory is required");
+            return "subCategory is required";
         }
         if (simpleResourceDTO.description() == null || simpleResourceDTO.description().isBlank()) {
-            throw new IllegalArgumentException("description is required");
+            return "description is required";
         }
+        return null;
+    }
 
-        if (authenticatedContributorId == null) {
-            throw new ApiException(403, "You must have a contributor profile to create resources");
+    /**
+     * Learning id of another resource with the same normalized link, or null.
+     * The Bloom filter answers the common case (a new link) without a query, only a "maybe" is checked in the database.
+     */
+    private Integer duplicateOf(String normalizedLink, Integer ownLearningId) {
+        if (normalizedLink == null || !LINK_FILTER.mightContain(normalizedLink)) {
+            return null;
         }
+        return RESOURCE_DAO.findLearningIdByNormalizedLink(normalizedLink, ownLearningId);
+    }
 
-        Contributor contributor = CONTRIBUTOR_DAO.findById(authenticatedContributorId);
-        if (contributor == null) {
-            throw new EntityNotFoundException("No contributor found with id " + authenticatedContributorId);
+    private void rejectDuplicateLink(String link, Integer ownLearningId) {
+        Integer existing = duplicateOf(UrlUtils.normalize(link), ownLearningId);
+        if (existing != null) {
+            throw new ApiException(409, "This link has already been shared as resource " + existing);
         }
+    }
 
-        contributor.setContributions(contributor.getContributions() + 1);
-
-        Resource resource = Resource.builder()
+    private Resource newResource(SimpleResourceDTO simpleResourceDTO, Contributor contributor) {
+        return Resource.builder()
                 .learningResourceLink(simpleResourceDTO.learningResourceLink().trim())
                 .title(simpleResourceDTO.title().trim())
                 .formatCategory(simpleResourceDTO.formatCategory())
@@ -76,15 +157,97 @@ public class ResourceService {
                 .description(simpleResourceDTO.description().trim())
                 .contributor(contributor)
                 .build();
+    }
+
+    //Resources embed their contributor, so its new contributions count must reach every cached copy (and the leaderboard)
+    private void contributorChanged(Contributor contributor) {
+        RESOURCE_CACHE.invalidateContributor(contributor.getId());
+        RESOURCE_FEEDS.updateContributor(new SimpleContributorDTO(contributor.getId(), contributor.getGithubProfile(),
+                contributor.getScreenName(), contributor.getContributions()));
+        SUGGESTION_TRIE.putContributor(contributor);
+        LEADERBOARD.put(contributor);
+    }
+
+    //Loads the resources for a ranked list of ids, keeping the rank order
+    private List<SimpleResourceDTO> loadInOrder(List<Long> ids) {
+        Map<Long, ResourceRowDTO> byId = RESOURCE_DAO.findByIds(ids).stream()
+                .collect(Collectors.toMap(ResourceRowDTO::id, Function.identity()));
+        List<SimpleResourceDTO> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ResourceRowDTO row = byId.get(id);
+            if (row != null) {
+                ordered.add(row.toSimpleResourceDTO());
+            }
+        }
+        return ordered;
+    }
+
+    private List<SimpleResourceDTO> toDTOs(List<ResourceRowDTO> rows) {
+        return rows.stream().map(ResourceRowDTO::toSimpleResourceDTO).toList();
+    }
+
+    //Column value plus the likes that the LikeCounter has not flushed yet
+    private int currentLikeCount(SimpleResourceDTO dto) {
+        int flushed = dto.likeCount() == null ? 0 : dto.likeCount();
+        return flushed + LIKE_COUNTER.pending(dto.learningId());
+    }
+
+    /**
+     * Fills likeCount and isLikedByCurrentUser for a whole list of resources.
+     * Like counts come from the denormalized column, so the only query is (when logged in)
+     * one IN query per HYDRATION_BATCH resources for the user's own likes.
+     */
+    private List<SimpleResourceDTO> hydrateLikes(List<SimpleResourceDTO> resources, String username) {
+        List<SimpleResourceDTO> hydrated = new ArrayList<>(resources.size());
+        for (int from = 0; from < resources.size(); from += HYDRATION_BATCH) {
+            List<SimpleResourceDTO> batch = resources.subList(from, Math.min(from + HYDRATION_BATCH, resources.size()));
+            List<Integer> learningIds = batch.stream().map(SimpleResourceDTO::learningId).toList();
+
+            Set<Integer> likedByUser = username != null ? USER_LIKE_DAO.findLikedLearningIds(username, learningIds) : Set.of();
+
+            for (SimpleResourceDTO dto : batch) {
+                Boolean isLiked = username != null ? likedByUser.contains(dto.learningId()) : null;
+                hydrated.add(dto.withLikes(currentLikeCount(dto), isLiked));
+            }
+        }
+        return hydrated;
+    }
+
+    //CREATE
+
+    //TODO: POST resources/
+    public SimpleResourceDTO createResource(SimpleResourceDTO simpleResourceDTO, Long authenticatedContributorId) {
+        String validationError = validateNewResource(simpleResourceDTO);
+        if (validationError != null) {
+            throw new IllegalArgumentException(validationError);
+        }
+
+        if (authenticatedContributorId == null) {
+            throw new ApiException(403, "You must have a contributor profile to create resources");
+        }
+
+        rejectDuplicateLink(simpleResourceDTO.learningResourceLink(), null);
 
+        Contributor contributor = CONTRIBUTOR_DAO.findById(authenticatedContributorId);
+        if (contributor == null) {
+            throw new EntityNotFoundException("No contributor found with id " + authenticatedContributorId);
+        }
+
+        Resource resource = newResource(simpleResourceDTO, contributor);
+
+        //persist raises the contribution count itself, inside the same transaction as the insert
         Resource persisted = RESOURCE_DAO.persist(resource);
-        CONTRIBUTOR_DAO.update(contributor);
+        Contributor counted = CONTRIBUTOR_DAO.findById(authenticatedContributorId);
+        persisted.setContributor(counted);
+        contributorChanged(counted);
+        reindex(persisted);
+        CATALOG_VERSION.bump();
 
         SimpleContributorDTO contributorDTO = new SimpleContributorDTO(
-                contributor.getId(),
-                contributor.getGithubProfile(),
-                contributor.getScreenName(),
-                contributor.getContributions());
+                counted.getId(),
+                counted.getGithubProfile(),
+                counted.getScreenName(),
+                counted.getContributions());
 
         return new SimpleResourceDTO(
                 persisted.getLearningId(),
@@ -101,6 +264,71 @@ public class ResourceService {
                 );
     }
 
+    //TODO: POST resources/bulk
+    public List<SimpleResourceDTO> createResources(List<SimpleResourceDTO> simpleResourceDTOs, Long authenticatedContributorId) {
+        if (simpleResourceDTOs == null || simpleResourceDTOs.isEmpty()) {
+            throw new IllegalArgumentException("At least one resource is required for a bulk create");
+        }
+        if (simpleResourceDTOs.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("A bulk create can hold at most " + MAX_BULK_SIZE + " resources");
+        }
+
+        //Every invalid resource is reported at once, so the whole import can be fixed in one go
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < simpleResourceDTOs.size(); i++) {
+            String validationError = validateNewResource(simpleResourceDTOs.get(i));
+            if (validationError != null) {
+                errors.add("resource " + i + ": " + validationError);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+
+        //Links already in the catalog, and the same link twice in this request
+        Map<String, Integer> firstIndexByLink = new HashMap<>();
+        for (int i = 0; i < simpleResourceDTOs.size(); i++) {
+            String normalizedLink = UrlUtils.normalize(simpleResourceDTOs.get(i).learningResourceLink());
+            Integer earlier = firstIndexByLink.putIfAbsent(normalizedLink, i);
+            Integer existing = earlier == null ? duplicateOf(normalizedLink, null) : null;
+            if (earlier != null) {
+                errors.add("resource " + i + ": same link as resource " + earlier);
+            } else if (existing != null) {
+                errors.add("resource " + i + ": link already shared as resource " + existing);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new ApiException(409, String.join("; ", errors));
+        }
+
+        if (authenticatedContributorId == null) {
+            throw new ApiException(403, "You must have a contributor profile to create resources");
+        }
+
+        Contributor contributor = CONTRIBUTOR_DAO.findById(authenticatedContributorId);
+        if (contributor == null) {
+            throw new EntityNotFoundException("No contributor found with id " + authenticatedContributorId);
+        }
+
+        List<Resource> resources = simpleResourceDTOs.stream()
+                .map(dto -> newResource(dto, contributor))
+                .toList();
+        //persistList raises the contribution count itself, inside the same transaction
+        List<Resource> persisted = new ArrayList<>(RESOURCE_DAO.persistList(resources));
+
+        Contributor counted = CONTRIBUTOR_DAO.findById(authenticatedContributorId);
+        contributorChanged(counted);
+        persisted.forEach(resource -> {
+            resource.setContributor(counted);
+            reindex(resource);
+        });
+        CATALOG_VERSION.bump();
+
+        return persisted.stream()
+                .map(convertToResourceDTO::convert)
+                .toList();
+    }
+
 
     //READ
 
@@ -110,12 +338,7 @@ public class ResourceService {
             throw new IllegalArgumentException("You must enter a valid resource id");
         }
 
-        Resource resource = RESOURCE_DAO.findById(resourceIdDTO.id());
-        if(resource == null){
-            throw new EntityNotFoundException("Could not find a resource with that id");
-        }
-
-        return convertToResourceDTO.convert(resource);
+        return findResourceByIdWithLikes(resourceIdDTO.id(), null);
     }
 
     //TODO: GET resources/{learning_id}
@@ -124,83 +347,213 @@ public class ResourceService {
             throw new IllegalArgumentException("You must enter a valid learning id");
         }
 
-        Resource resource = RESOURCE_DAO.findByLearningId(learningIdDTO.learningId());
-        if(resource == null){
-            throw new EntityNotFoundException("Could not find a resource with that id");
+        SimpleResourceDTO cached = RESOURCE_CACHE.getByLearningId(learningIdDTO.learningId());
+        if(cached == null){
+            long stamp = RESOURCE_CACHE.stamp();
+            Resource resource = RESOURCE_DAO.findByLearningId(learningIdDTO.learningId());
+            if(resource == null){
+                throw new EntityNotFoundException("Could not find a resource with that id");
+            }
+            cached = convertToResourceDTO.convert(resource);
+            RESOURCE_CACHE.put(resource.getId(), cached, stamp);
         }
-        return convertToResourceDTO.convert(resource);
+        return cached.withLikes(currentLikeCount(cached), null);
     }
 
     //Getting all resources you must be logged in
     //TODO: GET resources/  <-- retrieve all sort by format category
-    public List<SimpleResourceDTO> getAllResources(){
-        return new ArrayList<>(convertToResourceDTO.convertList(RESOURCE_DAO.retrieveAll()));
+    public List<SimpleResourceDTO> getAllResources(String username){
+        return hydrateLikes(convertToResourceDTO.convertList(RESOURCE_DAO.retrieveAll()), username);
+    }
+
+    //Streaming variant of getAllResources, the sink must write the resources out before it returns
+    public void streamAllResources(String username, Consumer<Stream<SimpleResourceDTO>> sink){
+        Set<Integer> likedByUser = USER_LIKE_DAO.findLikedLearningIds(username);
+        RESOURCE_DAO.streamAll(resources -> sink.accept(resources
+                .map(convertToResourceDTO::convert)
+                .map(dto -> dto.withLikes(currentLikeCount(dto), username != null ? likedByUser.contains(dto.learningId()) : null))));
     }
 
     //TODO: GET resources?page=0&limit=20
-    public PageDTO<SimpleResourceDTO> getAllResourcesPaginated(int page, int limit){
-        List<Resource> resources = RESOURCE_DAO.retrieveAllPaginated(page, limit);
+    public PageDTO<SimpleResourceDTO> getAllResourcesPaginated(int page, int limit, String username){
+        List<ResourceRowDTO> resources = RESOURCE_DAO.retrieveAllPaginated(page, limit);
         long totalElements = RESOURCE_DAO.countAll();
-        List<SimpleResourceDTO> content = convertToResourceDTO.convertList(resources);
+        List<SimpleResourceDTO> content = hydrateLikes(toDTOs(resources), username);
         return PageDTO.of(content, page, limit, totalElements);
     }
 
-    //TODO: GET resources/newest
-    public List<SimpleResourceDTO> getNewestResources() {
-        List<Resource> resources = RESOURCE_DAO.retrieveSortAllNewest();
-        return convertToResourceDTO.convertList(resources);
+    //TODO: GET resources?cursor=...&limit=20&sort=likes
+    public CursorPageDTO<SimpleResourceDTO> getAllResourcesByCursor(String cursor, int limit, ResourceSort sort, String username){
+        if(limit <= 0){
+            throw new IllegalArgumentException("limit must be a positive number");
+        }
+        if(sort == ResourceSort.LIKES || sort == ResourceSort.LIKES_THEN_NEWEST){
+            return getResourcesByLikes(null, null, sort, cursor, limit, username);
+        }
+        if(sort != null && sort != ResourceSort.NEWEST){
+            throw new IllegalArgumentException("sort must be newest, likes or likes_then_newest");
+        }
+
+        LocalDateTime lastCreatedAt = null;
+        Long lastId = null;
+        if(cursor != null && !cursor.isBlank()){
+            String[] parts = CursorUtils.decode(cursor, 2);
+            try {
+                lastCreatedAt = LocalDateTime.parse(parts[0]);
+                lastId = Long.parseLong(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("The cursor is not valid for this endpoint");
+            }
+        }
+
+        //One extra row tells us whether there is a next page, without a COUNT query
+        List<ResourceRowDTO> resources = RESOURCE_DAO.retrieveAllAfter(lastCreatedAt, lastId, limit + 1);
+        String nextCursor = null;
+        if(resources.size() > limit){
+            resources = resources.subList(0, limit);
+            ResourceRowDTO last = resources.get(limit - 1);
+            nextCursor = CursorUtils.encode(last.createdAt(), last.id());
+        }
+        return CursorPageDTO.of(hydrateLikes(toDTOs(resources), username), limit, nextCursor);
+    }
+
+    //TODO: GET resources/format/{format_category}?sort=likes  and  resources/sub/{sub_category}?sort=likes
+    public CursorPageDTO<SimpleResourceDTO> getResourcesInCategoryByLikes(FormatCategory formatCategory, SubCategory subCategory, ResourceSort sort,
+                                                                          String cursor, int limit, Long authenticatedContributorId, boolean isAdmin, String username){
+        if (!isAdmin && authenticatedContributorId == null) {
+            throw new RuntimeException("You must be logged in to request all resources in a category");
+        }
+        if(sort != ResourceSort.LIKES && sort != ResourceSort.LIKES_THEN_NEWEST){
+            throw new IllegalArgumentException("sort must be likes or likes_then_newest");
+        }
+        if(limit <= 0){
+            throw new IllegalArgumentException("limit must be a positive number");
+        }
+        return getResourcesByLikes(formatCategory, subCategory, sort, cursor, limit, username);
+    }
+
+    //Most liked first by the flushed like_count, the cursor is the (likeCount, [createdAt,] id) of the last resource on the page
+    private CursorPageDTO<SimpleResourceDTO> getResourcesByLikes(FormatCategory formatCategory, SubCategory subCategory, ResourceSort sort,
+                                                                 String cursor, int limit, String username){
+        boolean thenNewest = sort == ResourceSort.LIKES_THEN_NEWEST;
+        Integer lastLikeCount = null;
+        LocalDateTime lastCreatedAt = null;
+        Long lastId = null;
+        if(cursor != null && !cursor.isBlank()){
+            String[] parts = CursorUtils.decode(cursor, thenNewest ? 3 : 2);
+            try {
+                lastLikeCount = Integer.parseInt(parts[0]);
+                if(thenNewest){
+                    lastCreatedAt = LocalDateTime.parse(parts[1]);
+                }
+                lastId = Long.parseLong(parts[parts.length - 1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("The cursor is not valid for this endpoint");
+            }
+        }
+
+        List<ResourceRowDTO> resources = RESOURCE_DAO.retrieveByLikesAfter(formatCategory, subCategory, thenNewest,
+                lastLikeCount, lastCreatedAt, lastId, limit + 1);
+        String nextCursor = null;
+        if(resources.size() > limit){
+            resources = resources.subList(0, limit);
+            ResourceRowDTO last = resources.get(limit - 1);
+            nextCursor = thenNewest
+                    ? CursorUtils.encode(last.likeCount(), last.createdAt(), last.id())
+                    : CursorUtils.encode(last.likeCount(), last.id());
+        }
+        return CursorPageDTO.of(hydrateLikes(toDTOs(resources), username), limit, nextCursor);
+    }
+
+    //TODO: GET resources/newest  <-- served from the in-memory feeds, optionally for one category
+    public List<SimpleResourceDTO> getNewestResources(FormatCategory formatCategory, SubCategory subCategory, String username) {
+        return hydrateLikes(RESOURCE_FEEDS.newest(formatCategory, subCategory), username);
     }
 
     //TODO: GET resources/updated
-    public List<SimpleResourceDTO> getRecentlyUpdatedResources() {
-        List<Resource> resources = RESOURCE_DAO.findRecentlyUpdated();
-        return convertToResourceDTO.convertList(resources);
+    public List<SimpleResourceDTO> getRecentlyUpdatedResources(FormatCategory formatCategory, SubCategory subCategory, String username) {
+        return hydrateLikes(RESOURCE_FEEDS.updated(formatCategory, subCategory), username);
+    }
+
+    //TODO: GET resources/trending
+    //The ranking is kept in memory, only the (at most TOP_K) resources themselves are loaded. A resource that was
+    //deleted along with its contributor may still be ranked, loadInOrder leaves it out
+    public List<SimpleResourceDTO> getTrendingResources(FormatCategory formatCategory, SubCategory subCategory, int limit, String username) {
+        if (limit <= 0 || limit > TrendingIndex.TOP_K) {
+            throw new IllegalArgumentException("limit must be between 1 and " + TrendingIndex.TOP_K);
+        }
+        return hydrateLikes(loadInOrder(TRENDING_INDEX.trending(formatCategory, subCategory, limit)), username);
+    }
+
+    //TODO: GET resources/id/{id}/related
+    //Co-liked resources first, when there are too few of those the newest resources of the same sub category fill up
+    public List<SimpleResourceDTO> getRelatedResources(Long resourceId, int limit, String username) {
+        if (limit <= 0 || limit > MAX_RELATED) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_RELATED);
+        }
+        SimpleResourceDTO resource = findResourceByIdWithLikes(resourceId, null);
+
+        List<SimpleResourceDTO> related = new ArrayList<>(loadInOrder(CO_LIKE_INDEX.related(resourceId, limit)));
+        if (related.size() < limit && resource.subCategory() != null) {
+            Set<Integer> included = new HashSet<>();
+            included.add(resource.learningId());
+            related.forEach(dto -> included.add(dto.learningId()));
+            for (SimpleResourceDTO candidate : RESOURCE_FEEDS.newest(null, resource.subCategory())) {
+                if (related.size() == limit) {
+                    break;
+                }
+                if (included.add(candidate.learningId())) {
+                    related.add(candidate);
+                }
+            }
+        }
+        return hydrateLikes(related, username);
     }
 
     //Getting all resources by format cat you must be logged in
     //TODO: GET resources/{format_category}
-    public List<SimpleResourceDTO> getAllResourcesInFormatCat(SingleFormatCatDTO singleFormatCatDTO, Long authenticatedContributorId, boolean isAdmin){
+    public List<SimpleResourceDTO> getAllResourcesInFormatCat(SingleFormatCatDTO singleFormatCatDTO, Long authenticatedContributorId, boolean isAdmin, String username){
         if (!isAdmin && authenticatedContributorId == null) {
             throw new RuntimeException("You must be logged in to request all resources in a category");
         }
 
         if(singleFormatCatDTO == null || singleFormatCatDTO.formatCategory() == null){
-            return getAllResources();
+            return getAllResources(username);
         }
 
-        return new ArrayList<>(convertToResourceDTO.convertList(RESOURCE_DAO.findByFormatCat(singleFormatCatDTO.formatCategory())));
+        return hydrateLikes(toDTOs(RESOURCE_DAO.findByFormatCat(singleFormatCatDTO.formatCategory())), username);
     }
 
     //Getting all resources by sub cat you must be logged in
     //TODO: GET resources/{sub_category}
-    public List<SimpleResourceDTO> getAllResourcesInSubCat(SingleSubCategoryDTO singleSubCategoryDTO, Long authenticatedContributorId, boolean isAdmin){
+    public List<SimpleResourceDTO> getAllResourcesInSubCat(SingleSubCategoryDTO singleSubCategoryDTO, Long authenticatedContributorId, boolean isAdmin, String username){
         if (!isAdmin && authenticatedContributorId == null) {
             throw new RuntimeException("You must be logged in to request all resources in a category");
         }
 
         if(singleSubCategoryDTO == null || singleSubCategoryDTO.subCategory() == null){
-            return getAllResources();
+            return getAllResources(username);
         }
 
-        return new ArrayList<>(convertToResourceDTO.convertList(RESOURCE_DAO.findBySubCat(singleSubCategoryDTO.subCategory())));
+        return hydrateLikes(toDTOs(RESOURCE_DAO.findBySubCat(singleSubCategoryDTO.subCategory())), username);
     }
 
 
-    //TODO: GET resources/{title}
-    public SimpleResourceDTO findByTitle(ResourceTitleDTO resourceTitleDTO){
-        if(resourceTitleDTO == null){
+    //TODO: GET resources/{title}  <-- every resource with that title (ignoring case and extra spaces), oldest first
+    public List<SimpleResourceDTO> findByTitle(ResourceTitleDTO resourceTitleDTO, String username){
+        if(resourceTitleDTO == null || resourceTitleDTO.title() == null || resourceTitleDTO.title().isBlank()){
             throw new IllegalArgumentException("You must enter a valid title");
         }
 
-        Resource resource = RESOURCE_DAO.findByTitle(resourceTitleDTO.title());
-        if(resource == null){
+        List<Long> ids = TITLE_INDEX.find(resourceTitleDTO.title());
+        if(ids.isEmpty()){
             throw new EntityNotFoundException("Could not find a resource with that title");
         }
-        return convertToResourceDTO.convert(resource);
+        return hydrateLikes(loadInOrder(ids), username);
     }
 
     //TODO: GET resources/{contributor}
-    public List<SimpleResourceDTO> findByContributor(ContributorNameDTO contributorNameDTO){
+    public List<SimpleResourceDTO> findByContributor(ContributorNameDTO contributorNameDTO, String username){
         if(contributorNameDTO == null){
             throw new IllegalArgumentException("You must enter a valid GitHub or screen name");
         }
@@ -210,25 +563,137 @@ public class ResourceService {
             throw new EntityNotFoundException("Could not find a contributor with Github or scree name");
         }
 
-        List<Resource> resourceList = new ArrayList<>(RESOURCE_DAO.findByContributor(contributor.getId()));
+        List<ResourceRowDTO> resourceList = RESOURCE_DAO.findByContributor(contributor.getId());
         if(resourceList == null){
             throw  new EntityNotFoundException("Could not find a list of resources from that contributor");
         }
 
-        return convertToResourceDTO.convertList(resourceList);
+        return hydrateLikes(toDTOs(resourceList), username);
     }
 
-    //TODO: GET resources/{keyword}
-    public List<SimpleResourceDTO> findByKeyword(ResourceKeywordDTO resourceKeywordDTO){
-        if(resourceKeywordDTO == null){
+    //TODO: GET contributors/{name}/resources?page=0&limit=20
+    public PageDTO<SimpleResourceDTO> findByContributorPaginated(ContributorNameDTO contributorNameDTO, int page, int limit, String username){
+        if(contributorNameDTO == null){
+            throw new IllegalArgumentException("You must enter a valid GitHub or screen name");
+        }
+        if(page < 0){
+            throw new IllegalArgumentException("page cannot be negative");
+        }
+        if(limit <= 0){
+            throw new IllegalArgumentException("limit must be a positive number");
+        }
+
+        Contributor contributor = CONTRIBUTOR_DAO.findByName(contributorNameDTO.name());
+        List<ResourceRowDTO> resources = RESOURCE_DAO.findByContributorPaginated(contributor.getId(), page, limit);
+        long totalElements = RESOURCE_DAO.countByContributor(contributor.getId());
+        return PageDTO.of(hydrateLikes(toDTOs(resources), username), page, limit, totalElements);
+    }
+
+    //TODO: GET resources/{keyword}  <-- ranked by relevance
+    public List<SimpleResourceDTO> findByKeyword(ResourceKeywordDTO resourceKeywordDTO, String username){
+        if(resourceKeywordDTO == null || resourceKeywordDTO.keyword() == null || resourceKeywordDTO.keyword().isBlank()){
             throw new IllegalArgumentException("You must enter a valid keyword");
         }
 
-        List<Resource> resourceList = new ArrayList<>(RESOURCE_DAO.findByKeyword(resourceKeywordDTO.keyword()));
-        if(resourceList == null){
-            throw new EntityNotFoundException("Could not find any resources matching that keyword");
+        List<Long> rankedIds = KEYWORD_INDEX.search(resourceKeywordDTO.keyword()).resources().stream()
+                .map(KeywordIndex.ScoredResource::resourceId)
+                .toList();
+        return hydrateLikes(loadInOrder(rankedIds), username);
+    }
+
+    //TODO: GET resources/{keyword}?cursor=...&limit=20
+    public CursorPageDTO<SimpleResourceDTO> findByKeyword(ResourceKeywordDTO resourceKeywordDTO, String cursor, int limit, String username){
+        if(resourceKeywordDTO == null || resourceKeywordDTO.keyword() == null || resourceKeywordDTO.keyword().isBlank()){
+            throw new IllegalArgumentException("You must enter a valid keyword");
         }
-        return convertToResourceDTO.convertList(resourceList);
+        if(limit <= 0){
+            throw new IllegalArgumentException("limit must be a positive number");
+        }
+
+        //The cursor is the index version of the ranking plus the (score, id) of the last resource on the previous page.
+        //While that ranking is cached every page comes from it, after that the current ranking is continued from the same (score, id)
+        long version = -1;
+        double lastScore = Double.POSITIVE_INFINITY;
+        long lastId = Long.MIN_VALUE;
+        if(cursor != null && !cursor.isBlank()){
+            String[] parts = CursorUtils.decode(cursor, 3);
+            try {
+                version = Long.parseLong(parts[0]);
+                lastScore = Double.longBitsToDouble(Long.parseLong(parts[1]));
+                lastId = Long.parseLong(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The cursor is not valid for this endpoint");
+            }
+        }
+
+        KeywordIndex.Ranking ranking = KEYWORD_INDEX.search(resourceKeywordDTO.keyword(), version);
+        List<KeywordIndex.ScoredResource> ranked = ranking.resources();
+        int start = 0;
+        while(start < ranked.size()
+                && (ranked.get(start).score() > lastScore
+                || (ranked.get(start).score() == lastScore && ranked.get(start).resourceId() <= lastId))){
+            start++;
+        }
+
+        int end = Math.min(start + limit, ranked.size());
+        List<KeywordIndex.ScoredResource> page = ranked.subList(start, end);
+        String nextCursor = null;
+        if(end < ranked.size() && !page.isEmpty()){
+            KeywordIndex.ScoredResource last = page.get(page.size() - 1);
+            nextCursor = CursorUtils.encode(ranking.version(), Double.doubleToLongBits(last.score()), last.resourceId());
+        }
+
+        List<Long> pageIds = page.stream().map(KeywordIndex.ScoredResource::resourceId).toList();
+        return CursorPageDTO.of(hydrateLikes(loadInOrder(pageIds), username), limit, nextCursor);
+    }
+
+    //TODO: GET resources/filter
+    //GET resources/filter?format=ARTICLE,PODCAST&sub=DATABASES,SECURITY&page=0&limit=20
+    public PageDTO<SimpleResourceDTO> filterByCategories(Set<FormatCategory> formatCategories, Set<SubCategory> subCategories, int page, int limit, String username){
+        if (page < 0 || limit < 1) {
+            throw new IllegalArgumentException("Page cannot be negative and limit must be at least 1 when filtering resources");
+        }
+        CategoryFilterIndex.Match match = CATEGORY_FILTER_INDEX.match(formatCategories, subCategories, page, limit);
+        return PageDTO.of(hydrateLikes(loadInOrder(match.ids()), username), page, limit, match.total());
+    }
+
+    //TODO: GET resources/query
+    //GET resources/query?formatCategory=..&subCategory=..&contributor=..&keyword=..&createdAfter=..&createdBefore=..&sort=..
+    public SliceDTO<SimpleResourceDTO> queryResources(ResourceQueryDTO resourceQueryDTO, String username){
+        if (resourceQueryDTO == null) {
+            throw new IllegalArgumentException("You must enter a query when searching for resources");
+        }
+        if (resourceQueryDTO.page() < 0 || resourceQueryDTO.limit() < 1) {
+            throw new IllegalArgumentException("Page cannot be negative and limit must be at least 1 when querying resources");
+        }
+        if (resourceQueryDTO.createdAfter() != null && resourceQueryDTO.createdBefore() != null
+                && !resourceQueryDTO.createdAfter().isBefore(resourceQueryDTO.createdBefore())) {
+            throw new IllegalArgumentException("createdAfter must be before createdBefore when querying resources");
+        }
+
+        List<ResourceRowDTO> rows = RESOURCE_DAO.query(resourceQueryDTO);
+        boolean hasNext = rows.size() > resourceQueryDTO.limit();
+        List<SimpleResourceDTO> content = rows.stream()
+                .limit(resourceQueryDTO.limit())
+                .map(ResourceRowDTO::toSimpleResourceDTO)
+                .toList();
+        return SliceDTO.of(hydrateLikes(content, username), resourceQueryDTO.page(), resourceQueryDTO.limit(), hasNext);
+    }
+
+    //TODO: GET resources/facets
+    public FacetCountsDTO getFacetCounts() {
+        return CATEGORY_FACETS.getCounts();
+    }
+
+    //TODO: GET resources/suggest?q=...  <-- answered from the in-memory trie, no query per keystroke
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("q is required for suggestions");
+        }
+        if (limit <= 0 || limit > SuggestionTrie.TOP_K) {
+            throw new IllegalArgumentException("limit must be between 1 and " + SuggestionTrie.TOP_K);
+        }
+        return SUGGESTION_TRIE.suggest(query, limit);
     }
 
 
@@ -249,8 +714,14 @@ public class ResourceService {
             throw new ApiException(404, "Couldn't find the learning resource in our database");
         }
 
+        //Checked before anything else, the duplicate check below would tell anyone which resource holds a link
+        if (!isAdmin && !resource.getContributor().getId().equals(authenticatedContributorId)) {
+            throw new ApiException(403, "You are not allowed to update this resource");
+        }
+
         //Null checks
         if(simpleResourceDTO.learningResourceLink() != null) {
+            rejectDuplicateLink(simpleResourceDTO.learningResourceLink(), resource.getLearningId());
             resource.setLearningResourceLink(simpleResourceDTO.learningResourceLink());
         }
 
@@ -270,21 +741,20 @@ public class ResourceService {
             resource.setDescription(simpleResourceDTO.description());
         }
 
-        if (!isAdmin && !resource.getContributor().getId().equals(authenticatedContributorId)) {
-            throw new ApiException(403, "You are not allowed to update this resource");
-        }
-
         Resource updatedResource = RESOURCE_DAO.update(resource);
+        RESOURCE_CACHE.invalidate(updatedResource.getId());
+        reindex(updatedResource);
+        CATALOG_VERSION.bump();
 
         SimpleContributorDTO simpleContributorDTO = new SimpleContributorDTO(updatedResource.getContributor().getId(), updatedResource.getContributor().getGithubProfile(),
                 updatedResource.getContributor().getScreenName(), updatedResource.getContributor().getContributions());
 
-        int likeCount = USER_LIKE_DAO.getLikeCount(updatedResource.getId());
-        return new SimpleResourceDTO(updatedResource.getLearningId(), updatedResource.getLearningResourceLink(),
+        SimpleResourceDTO updatedDTO = new SimpleResourceDTO(updatedResource.getLearningId(), updatedResource.getLearningResourceLink(),
                 updatedResource.getTitle(), updatedResource.getFormatCategory(), updatedResource.getSubCategory(),
                 updatedResource.getDescription(), simpleContributorDTO,
                 updatedResource.getCreatedAt(), updatedResource.getModifiedAt(),
-                likeCount, null);
+                updatedResource.getLikeCount(), null);
+        return updatedDTO.withLikes(currentLikeCount(updatedDTO), null);
     }
 
 
@@ -311,14 +781,137 @@ public class ResourceService {
         }
 
 
-        resource.getContributor().setContributions(resource.getContributor().getContributions() - 1);
+        //delete lowers the contribution count itself, inside the same transaction as the delete
+        boolean deleted = RESOURCE_DAO.delete(resource.getId());
+        RESOURCE_CACHE.invalidate(resource.getId());
+        unindex(resource.getId());
+        contributorChanged(CONTRIBUTOR_DAO.findById(resource.getContributor().getId()));
+        CATALOG_VERSION.bump();
+        return deleted;
+    }
+
+
+    //EXPORT / IMPORT
+
+    //TODO: GET admin/resources/export  <-- the sink must write the lines out before it returns
+    public void exportResources(Consumer<Stream<ResourceExportDTO>> sink) {
+        RESOURCE_DAO.streamAllRows(rows -> sink.accept(rows
+                .map(row -> ResourceExportDTO.of(row, currentLikeCount(row.toSimpleResourceDTO())))));
+    }
+
+    /**
+     * TODO: POST admin/resources/import
+     * Reads the NDJSON lines one by one and writes them in chunks of IMPORT_CHUNK_SIZE,
+     * so memory use does not depend on the size of the import.
+     * Invalid lines are reported and left out, a learning id that already exists is skipped.
+     */
+    public ImportResultDTO importResources(Stream<String> lines) {
+        Map<String, Optional<Contributor>> contributorsByName = new HashMap<>();
+        Set<Long> touchedContributorIds = new HashSet<>();
+        List<Resource> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<String> errors = new ArrayList<>();
+        long imported = 0;
+        long skipped = 0;
+        long invalid = 0;
+        long lineNumber = 0;
+
+        try {
+            Iterator<String> iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                String line = iterator.next();
+                lineNumber++;
+                String error = line.isBlank() ? null : readImportLine(line, contributorsByName, chunk);
+                if (error != null) {
+                    invalid++;
+                    if (errors.size() < MAX_IMPORT_ERRORS) {
+                        errors.add("line " + lineNumber + ": " + error);
+                    }
+                }
+
+                if (chunk.size() == IMPORT_CHUNK_SIZE || (!iterator.hasNext() && !chunk.isEmpty())) {
+                    List<Resource> inserted = RESOURCE_DAO.importBatch(chunk);
+                    inserted.forEach(resource -> {
+                        touchedContributorIds.add(resource.getContributor().getId());
+                        reindex(resource);
+                    });
+                    imported += inserted.size();
+                    skipped += chunk.size() - inserted.size();
+                    chunk.clear();
+                }
+            }
+        } finally {
+            //Also after a failed chunk, the ones before it are committed and must show up everywhere
+            for (Long contributorId : touchedContributorIds) {
+                contributorChanged(CONTRIBUTOR_DAO.findById(contributorId));
+            }
+            if (!touchedContributorIds.isEmpty()) {
+                CATALOG_VERSION.bump();
+            }
+        }
+        return new ImportResultDTO(imported, skipped, invalid, errors);
+    }
+
+    //Adds the resource on the line to the chunk, or returns why it cannot be imported
+    private String readImportLine(String line, Map<String, Optional<Contributor>> contributorsByName, List<Resource> chunk) {
+        ResourceExportDTO exported;
+        try {
+            exported = EXPORT_LINE_READER.readValue(line);
+        } catch (JsonProcessingException e) {
+            return "not a valid resource: " + e.getOriginalMessage();
+        }
+        if (exported == null) {
+            return "not a valid resource";
+        }
+        String validationError = validateNewResource(exported.toSimpleResourceDTO());
+        if (validationError != null) {
+            return validationError;
+        }
+        String name = contributorName(exported);
+        if (name.isBlank()) {
+            return "githubProfile or screenName is required";
+        }
+        Optional<Contributor> contributor = contributorsByName.computeIfAbsent(name, this::findContributorByName);
+        if (contributor.isEmpty()) {
+            return "no contributor named " + name;
+        }
+        //A line of an earlier import run carries its own learning id, that one is skipped later instead of reported here
+        String normalizedLink = UrlUtils.normalize(exported.learningResourceLink());
+        Integer existing = duplicateOf(normalizedLink, exported.learningId());
+        if (existing != null) {
+            return "link already shared as resource " + existing;
+        }
+        //The chunk is not in the database yet, so a repeat inside it is looked for there
+        for (Resource pending : chunk) {
+            if (normalizedLink.equals(pending.getNormalizedLink())) {
+                return "same link as an earlier line";
+            }
+        }
+        chunk.add(importedResource(exported, contributor.get()));
+        return null;
+    }
+
+    private String contributorName(ResourceExportDTO exported) {
+        String name = exported.githubProfile() != null && !exported.githubProfile().isBlank()
+                ? exported.githubProfile()
+                : exported.screenName();
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
 
-        if(resource.getContributor().getContributions() < 0){
-            throw new ApiException(400, "You cannot have negative contributions, something went wrong!");
+    private Optional<Contributor> findContributorByName(String name) {
+        try {
+            return Optional.of(CONTRIBUTOR_DAO.findByName(name));
+        } catch (EntityNotFoundException e) {
+            return Optional.empty();
         }
+    }
 
-        CONTRIBUTOR_DAO.update(resource.getContributor());
-        return RESOURCE_DAO.delete(resource.getId());
+    private Resource importedResource(ResourceExportDTO exported, Contributor contributor) {
+        Resource resource = newResource(exported.toSimpleResourceDTO(), contributor);
+        resource.setLearningId(exported.learningId());
+        resource.setCreatedAt(exported.createdAt());
+        resource.setModifiedAt(exported.modifiedAt());
+        resource.updateLookupKeys();
+        return resource;
     }
 
 
@@ -332,6 +925,7 @@ public class ResourceService {
             throw new ApiException(403, "You must be logged in to like a resource");
         }
         USER_LIKE_DAO.addLike(username, resourceId);
+        CATALOG_VERSION.bump();
     }
 
     public boolean unlikeResource(Long resourceId, String username) {
@@ -341,18 +935,36 @@ public class ResourceService {
         if (username == null || username.isBlank()) {
             throw new ApiException(403, "You must be logged in to unlike a resource");
         }
-        return USER_LIKE_DAO.removeLike(username, resourceId);
+        boolean removed = USER_LIKE_DAO.removeLike(username, resourceId);
+        if (removed) {
+            CATALOG_VERSION.bump();
+        }
+        return removed;
     }
 
     public SimpleResourceDTO findResourceByIdWithLikes(Long resourceId, String username) {
-        Resource resource = RESOURCE_DAO.findById(resourceId);
-        if (resource == null) {
-            throw new EntityNotFoundException("Could not find a resource with that id");
+        SimpleResourceDTO cached = RESOURCE_CACHE.getById(resourceId);
+        if (cached == null) {
+            long stamp = RESOURCE_CACHE.stamp();
+            Resource resource = RESOURCE_DAO.findById(resourceId);
+            if (resource == null) {
+                throw new EntityNotFoundException("Could not find a resource with that id");
+            }
+
+            cached = convertToResourceDTO.convert(resource);
+            RESOURCE_CACHE.put(resourceId, cached, stamp);
         }
 
-        int likeCount = USER_LIKE_DAO.getLikeCount(resourceId);
+        //The cache holds the flushed column value, pending likes are added on every read
         Boolean isLikedByCurrentUser = username != null ? USER_LIKE_DAO.userLikesResource(username, resourceId) : null;
+        return cached.withLikes(currentLikeCount(cached), isLikedByCurrentUser);
+    }
+
+
+    //CACHE
 
-        return convertToResourceDTO.convert(resource, likeCount, isLikedByCurrentUser);
+    //TODO: GET resources/cache/stats
+    public CacheStatsDTO getCacheStats() {
+        return RESOURCE_CACHE.getStats();
     }
 }
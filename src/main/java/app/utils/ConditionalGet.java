@@ -0,0 +1,60 @@
+package app.utils;
+
+import app.caches.CatalogVersion;
+import dk.bugelhartmann.UserDTO;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.HttpStatus;
+
+/**
+ * Wraps a GET handler with ETag / If-None-Match support based on the CatalogVersion.
+ * The ETag also carries a hash of the logged-in user, since isLikedByCurrentUser differs per user.
+ * On a match the handler is never called: no query and no serialization, just a 304.
+ */
+public class ConditionalGet {
+
+    private ConditionalGet() {
+
+    }
+
+    public static Handler withETag(Handler handler) {
+        return ctx -> {
+            //Read before the handler runs, a write during the request then gives the response an older tag, never a newer one
+            String etag = etagFor(ctx, CatalogVersion.getInstance().current());
+            ctx.header("Cache-Control", ctx.attribute("user") != null ? "private, no-cache" : "no-cache");
+            ctx.header("Vary", "Authorization");
+            ctx.header("ETag", etag);
+            if (matches(ctx.header("If-None-Match"), etag)) {
+                ctx.status(HttpStatus.NOT_MODIFIED);
+                return;
+            }
+            handler.handle(ctx);
+        };
+    }
+
+    private static String etagFor(Context ctx, long version) {
+        UserDTO user = ctx.attribute("user");
+        String tag = Long.toHexString(version);
+        if (user != null && user.getUsername() != null) {
+            tag += "-" + Integer.toHexString(user.getUsername().hashCode());
+        }
+        return "\"" + tag + "\"";
+    }
+
+    //If-None-Match may hold several tags, and weak tags still match on a GET
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package app.utils;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Purpose: Builds the normalized title key that title lookups compare on.
+ * "  Java   Streams " and "java streams" get the same key, so the lookup needs neither lower() nor trim() in SQL.
+ */
+public class TitleUtils {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public static String key(String title) {
+        if (title == null) {
+            return null;
+        }
+        return WHITESPACE.matcher(title.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
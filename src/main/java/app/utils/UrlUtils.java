@@ -0,0 +1,100 @@
+package app.utils;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Purpose: Canonical form of a learning resource link, so the same page submitted twice is recognized.
+ * http and https, "www.", host case, default ports, fragments, trailing slashes, tracking parameters
+ * and the order of the remaining parameters do not make two links different.
+ * YouTube links are reduced to the video (and playlist) id, whichever of their many forms was shared.
+ */
+public class UrlUtils {
+    private static final Set<String> TRACKING_PARAMETERS = Set.of(
+            "fbclid", "gclid", "dclid", "msclkid", "mc_cid", "mc_eid", "igshid", "ref", "ref_src", "si", "feature");
+    private static final Set<String> YOUTUBE_HOSTS = Set.of("youtube.com", "m.youtube.com", "music.youtube.com");
+    private static final Set<String> YOUTUBE_PARAMETERS = Set.of("v", "list");
+
+    public static String normalize(String link) {
+        if (link == null || link.isBlank()) {
+            return null;
+        }
+        String trimmed = link.strip();
+        URI uri;
+        try {
+            uri = new URI(trimmed.contains("://") ? trimmed : "https://" + trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+        if (uri.getHost() == null) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        if (scheme.equals("http")) {
+            scheme = "https";
+        }
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        if (host.startsWith("www.")) {
+            host = host.substring(4);
+        }
+        int port = uri.getPort();
+        boolean defaultPort = port == -1 || port == 80 || port == 443;
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        List<String> parameters = parameters(uri.getRawQuery());
+
+        //youtu.be/ID and youtube.com/shorts/ID are the same video as youtube.com/watch?v=ID
+        if (host.equals("youtu.be") && path.length() > 1) {
+            parameters.add("v=" + path.substring(1).split("/")[0]);
+            host = "youtube.com";
+            path = "/watch";
+        } else if (YOUTUBE_HOSTS.contains(host)) {
+            host = "youtube.com";
+            if (path.startsWith("/shorts/") && path.length() > "/shorts/".length()) {
+                parameters.add("v=" + path.substring("/shorts/".length()).split("/")[0]);
+                path = "/watch";
+            }
+        }
+        boolean youtube = host.equals("youtube.com");
+
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        List<String> kept = new ArrayList<>();
+        for (String parameter : parameters) {
+            String name = parameter.split("=", 2)[0].toLowerCase(Locale.ROOT);
+            boolean keep = youtube ? YOUTUBE_PARAMETERS.contains(name) : !name.startsWith("utm_") && !TRACKING_PARAMETERS.contains(name);
+            if (keep && !kept.contains(parameter)) {
+                kept.add(parameter);
+            }
+        }
+        kept.sort(null);
+
+        StringBuilder normalized = new StringBuilder(scheme).append("://").append(host);
+        if (!defaultPort) {
+            normalized.append(':').append(port);
+        }
+        normalized.append(path);
+        if (!kept.isEmpty()) {
+            normalized.append('?').append(String.join("&", kept));
+        }
+        return normalized.toString();
+    }
+
+    private static List<String> parameters(String rawQuery) {
+        List<String> parameters = new ArrayList<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            if (!parameter.isEmpty()) {
+                parameters.add(parameter);
+            }
+        }
+        return parameters;
+    }
+}
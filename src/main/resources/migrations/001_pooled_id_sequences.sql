@@ -0,0 +1,30 @@
+-- Moves resource, contributor and user_likes from IDENTITY ids to pooled sequences (allocationSize = 50)
+-- and lets resource_learning_id_seq hand out learning ids in blocks of 50.
+-- Run once against an existing database BEFORE starting the version that uses the sequences.
+-- hbm2ddl would otherwise create the sequences starting at 1, and the first inserts would collide with existing ids.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS resource_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS contributor_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS user_likes_seq INCREMENT BY 50;
+
+-- Hibernate's pooled optimizer uses the 50 ids up to the value nextval returns, so every sequence starts past the current ids
+SELECT setval('resource_seq', (SELECT COALESCE(MAX(id), 0) FROM resource) + 50);
+SELECT setval('contributor_seq', (SELECT COALESCE(MAX(id), 0) FROM contributor) + 50);
+SELECT setval('user_likes_seq', (SELECT COALESCE(MAX(id), 0) FROM user_likes) + 50);
+
+-- The ids are assigned by Hibernate now, drop the database side generation (identity or serial default)
+ALTER TABLE resource ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE resource ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE contributor ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE contributor ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE user_likes ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE user_likes ALTER COLUMN id DROP DEFAULT;
+
+-- LearningIdAllocator reads the increment, one nextval returning n then reserves n - 49 .. n
+CREATE SEQUENCE IF NOT EXISTS resource_learning_id_seq;
+SELECT setval('resource_learning_id_seq', GREATEST((SELECT COALESCE(MAX(learning_id), 0) FROM resource), (SELECT last_value FROM resource_learning_id_seq)));
+ALTER SEQUENCE resource_learning_id_seq INCREMENT BY 50;
+
+COMMIT;
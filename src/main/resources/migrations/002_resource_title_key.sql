@@ -0,0 +1,15 @@
+-- Adds resource.title_key, the case-folded and whitespace-collapsed title that title lookups compare on.
+-- hbm2ddl adds the column and the index on its own, but leaves title_key NULL for existing rows.
+-- This fills it the same way TitleUtils.key() does: trim, collapse whitespace, lower case.
+
+BEGIN;
+
+ALTER TABLE resource ADD COLUMN IF NOT EXISTS title_key varchar(255);
+
+UPDATE resource
+SET title_key = lower(regexp_replace(btrim(title, E' \t\n\r\f\v'), '\s+', ' ', 'g'))
+WHERE title IS NOT NULL AND title_key IS DISTINCT FROM lower(regexp_replace(btrim(title, E' \t\n\r\f\v'), '\s+', ' ', 'g'));
+
+CREATE INDEX IF NOT EXISTS idx_resource_title_key ON resource (title_key);
+
+COMMIT;
@@ -0,0 +1,18 @@
+-- Makes resource.normalized_link unique. The Bloom filter and the exact check in ResourceService reject known links,
+-- but two parallel creates of the same new link both pass them, the index makes the second insert fail with a 409.
+-- Existing duplicates have to be resolved first, the script stops without changing anything while there are any.
+
+BEGIN;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT normalized_link FROM resource WHERE normalized_link IS NOT NULL
+               GROUP BY normalized_link HAVING COUNT(*) > 1) THEN
+        RAISE EXCEPTION 'resource.normalized_link has duplicates, merge or delete them before running this migration';
+    END IF;
+END $$;
+
+DROP INDEX IF EXISTS idx_resource_normalized_link;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_resource_normalized_link ON resource (normalized_link);
+
+COMMIT;
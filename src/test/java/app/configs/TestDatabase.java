@@ -0,0 +1,76 @@
+package app.configs;
+
+import app.entities.Contributor;
+import app.security.daos.SecurityDAO;
+import app.security.dtos.SignupRequestDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+/**
+ * One Testcontainers PostgreSQL database for every test in the JVM (see HibernateConfig.setTestProperties).
+ * The services and DAOs ask HibernateConfig.getEntityManagerFactory() for their factory, so the test flag is set
+ * before anything else does, and everything shares the same factory.
+ */
+public class TestDatabase {
+    private static final String MIGRATION = "/migrations/001_pooled_id_sequences.sql";
+    private static EntityManagerFactory emf;
+
+    public static synchronized EntityManagerFactory getEntityManagerFactory() {
+        if (emf == null) {
+            HibernateConfig.setTest(true);
+            emf = HibernateConfig.getEntityManagerFactory();
+            migrate(emf);
+        }
+        return emf;
+    }
+
+    //hbm2ddl creates the tables and id sequences, resource_learning_id_seq only exists once the migration has run
+    private static void migrate(EntityManagerFactory emf) {
+        String script;
+        try (InputStream in = TestDatabase.class.getResourceAsStream(MIGRATION)) {
+            if (in == null) {
+                throw new IllegalStateException(MIGRATION + " is not on the classpath");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + MIGRATION, e);
+        }
+        try (EntityManager em = emf.createEntityManager()) {
+            em.unwrap(Session.class).doWork(connection -> {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(script);
+                } finally {
+                    connection.setAutoCommit(false);
+                }
+            });
+        }
+    }
+
+    //Every contributor belongs to a user, the name doubles as username, GitHub handle and screen name
+    public static Contributor createContributor(String name) {
+        return SecurityDAO.getInstance(getEntityManagerFactory())
+                .createUserWithContributor(new SignupRequestDTO(name, "password", name, name))
+                .getContributor();
+    }
+
+    //show_sql is on in the test properties, printing thousands of statements would dominate any timing
+    public static <T> T withoutStdout(Supplier<T> work) {
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return work.get();
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package app.daos;
+
+import app.configs.TestDatabase;
+import app.dtos.contributordtos.ContributorSummaryDTO;
+import app.entities.Contributor;
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The resource count and like total of a contributor summary come from correlated subqueries, these check them against
+ * known resources: several with likes, one alone, and a contributor without any resources, whose total must be 0, not null.
+ * The names start with "zzz" so they are the first page of the listing, which orders by name descending.
+ */
+class ContributorDAOSummaryTest {
+    private static ContributorDAO contributorDAO;
+    private static Contributor many;
+    private static Contributor single;
+    private static Contributor none;
+
+    @BeforeAll
+    static void setUp() {
+        EntityManagerFactory emf = TestDatabase.getEntityManagerFactory();
+        contributorDAO = ContributorDAO.getInstance(emf);
+        ResourceDAO resourceDAO = ResourceDAO.getInstance(emf);
+        many = TestDatabase.createContributor("zzz-summary-a");
+        single = TestDatabase.createContributor("zzz-summary-b");
+        none = TestDatabase.createContributor("zzz-summary-c");
+
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            resources.add(resource(many, i));
+        }
+        resources.add(resource(single, 0));
+        TestDatabase.withoutStdout(() -> resourceDAO.persistList(resources));
+
+        //like_count is maintained by the database, set directly it does not wait for the LikeCounter
+        int[] likes = {2, 0, 5, 4};
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            for (int i = 0; i < resources.size(); i++) {
+                em.createNativeQuery("UPDATE resource SET like_count = ?1 WHERE id = ?2")
+                        .setParameter(1, likes[i])
+                        .setParameter(2, resources.get(i).getId())
+                        .executeUpdate();
+            }
+            em.getTransaction().commit();
+        }
+    }
+
+    private static Resource resource(Contributor contributor, int i) {
+        return Resource.builder()
+                .learningResourceLink("https://example.com/summary/" + contributor.getScreenName() + "/" + i)
+                .title("Summary resource " + contributor.getScreenName() + " " + i)
+                .formatCategory(FormatCategory.ARTICLE)
+                .subCategory(SubCategory.values()[0])
+                .description("Counted by the summary test")
+                .contributor(contributor)
+                .build();
+    }
+
+    @Test
+    void summariesByIdsCountResourcesAndSumLikes() {
+        Map<Long, ContributorSummaryDTO> byId = contributorDAO.findSummariesByIds(List.of(many.getId(), single.getId(), none.getId()))
+                .stream()
+                .collect(Collectors.toMap(ContributorSummaryDTO::contributorId, Function.identity()));
+
+        assertEquals(3, byId.size());
+        assertSummary(byId.get(many.getId()), "zzz-summary-a", 3, 3L, 7L);
+        assertSummary(byId.get(single.getId()), "zzz-summary-b", 1, 1L, 4L);
+        assertSummary(byId.get(none.getId()), "zzz-summary-c", 0, 0L, 0L);
+    }
+
+    @Test
+    void summariesByIdsWithoutIdsIsEmpty() {
+        assertTrue(contributorDAO.findSummariesByIds(List.of()).isEmpty());
+        assertTrue(contributorDAO.findSummariesByIds(null).isEmpty());
+    }
+
+    @Test
+    void summariesByNamePageInNameOrder() {
+        List<ContributorSummaryDTO> first = contributorDAO.findSummariesByName(0, 2);
+        assertEquals(2, first.size());
+        assertSummary(first.get(0), "zzz-summary-c", 0, 0L, 0L);
+        assertSummary(first.get(1), "zzz-summary-b", 1, 1L, 4L);
+
+        List<ContributorSummaryDTO> second = contributorDAO.findSummariesByName(1, 2);
+        assertSummary(second.get(0), "zzz-summary-a", 3, 3L, 7L);
+    }
+
+    private static void assertSummary(ContributorSummaryDTO summary, String name, int contributions, Long resourceCount, Long totalLikes) {
+        assertEquals(name, summary.githubProfile());
+        assertEquals(contributions, summary.contributions(), name + " contributions");
+        assertEquals(resourceCount, summary.resourceCount(), name + " resources");
+        assertEquals(totalLikes, summary.totalLikes(), name + " likes");
+    }
+}
@@ -0,0 +1,175 @@
+package app.daos;
+
+import app.configs.TestDatabase;
+import app.entities.Contributor;
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+import app.utils.TitleUtils;
+import app.utils.UrlUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulk insert of ROWS resources through persistList (pooled resource_seq, block-allocated learning ids, JDBC batches of
+ * JDBC_BATCH_SIZE) against what the IDENTITY mapping did before: a nextval for the learning id and an
+ * INSERT ... RETURNING id per row, each its own round trip.
+ * The old path is replayed with plain JDBC on a scratch table shaped like resource, which flatters it, it skips Hibernate.
+ * Tagged benchmark, so it only runs with mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class ResourceDAOInsertBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceDAOInsertBenchmarkTest.class);
+    private static final int ROWS = 10_000;
+    private static EntityManagerFactory emf;
+    private static ResourceDAO resourceDAO;
+    private static Contributor contributor;
+
+    @BeforeAll
+    static void setUp() {
+        emf = TestDatabase.getEntityManagerFactory();
+        resourceDAO = ResourceDAO.getInstance(emf);
+        contributor = TestDatabase.createContributor("insert-benchmark");
+    }
+
+    @Test
+    void pooledSequencesBatchTheInserts() {
+        Result identity = insertRowByRow();
+        Result pooled = insertWithPersistList();
+
+        LOGGER.info("IDENTITY + nextval per row: {}", identity);
+        LOGGER.info("pooled sequences + batches: {}", pooled);
+
+        assertEquals(2L * ROWS, identity.statements(), "IDENTITY + nextval per row: " + identity);
+        //One prepared insert and one contributions update per batch, plus the id and learning id blocks
+        assertTrue(pooled.statements() < ROWS / 10, "pooled sequences + batches: " + pooled);
+    }
+
+    private Result insertWithPersistList() {
+        List<Resource> resources = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            resources.add(Resource.builder()
+                    .learningResourceLink("https://example.com/pooled/" + i)
+                    .title("Pooled resource " + i)
+                    .formatCategory(FormatCategory.values()[i % FormatCategory.values().length])
+                    .subCategory(SubCategory.values()[i % SubCategory.values().length])
+                    .description("Inserted by the insert benchmark")
+                    .contributor(contributor)
+                    .build());
+        }
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        long start = System.nanoTime();
+        int persisted = TestDatabase.withoutStdout(() -> resourceDAO.persistList(resources).size());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long statements = statistics.getPrepareStatementCount();
+        statistics.setStatisticsEnabled(false);
+
+        assertEquals(ROWS, persisted);
+        return new Result(millis, statements);
+    }
+
+    private Result insertRowByRow() {
+        //One transaction for all rows, like persistList
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            Result result = em.unwrap(Session.class).doReturningWork(connection -> {
+                createScratchTable(connection);
+                long statements = 0;
+                long start = System.nanoTime();
+                try (PreparedStatement nextval = connection.prepareStatement(
+                             "SELECT nextval('resource_identity_bench_learning_id_seq')");
+                     PreparedStatement insert = connection.prepareStatement(
+                             "INSERT INTO resource_identity_bench (version, learning_id, learning_resource_link, normalized_link, " +
+                                     "title, title_key, format_category, sub_category, description, created_at, modified_at, contributor_id) " +
+                                     "VALUES (0, ?, ?, ?, ?, ?, ?, ?, ?, now(), now(), ?) RETURNING id")) {
+                    for (int i = 0; i < ROWS; i++) {
+                        int learningId;
+                        try (ResultSet rs = nextval.executeQuery()) {
+                            rs.next();
+                            learningId = rs.getInt(1);
+                        }
+                        statements++;
+
+                        String link = "https://example.com/identity/" + i;
+                        String title = "Identity resource " + i;
+                        insert.setInt(1, learningId);
+                        insert.setString(2, link);
+                        insert.setString(3, UrlUtils.normalize(link));
+                        insert.setString(4, title);
+                        insert.setString(5, TitleUtils.key(title));
+                        insert.setString(6, FormatCategory.values()[i % FormatCategory.values().length].name());
+                        insert.setString(7, SubCategory.values()[i % SubCategory.values().length].name());
+                        insert.setString(8, "Inserted by the insert benchmark");
+                        insert.setLong(9, contributor.getId());
+                        try (ResultSet rs = insert.executeQuery()) {
+                            rs.next();
+                        }
+                        statements++;
+                    }
+                }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                return new Result(millis, statements);
+            });
+            em.getTransaction().commit();
+            return result;
+        }
+    }
+
+    private void createScratchTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS resource_identity_bench");
+            statement.execute("DROP SEQUENCE IF EXISTS resource_identity_bench_learning_id_seq");
+            statement.execute("CREATE SEQUENCE resource_identity_bench_learning_id_seq");
+            statement.execute("CREATE TABLE resource_identity_bench (" +
+                    "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "version BIGINT NOT NULL, " +
+                    "learning_id INTEGER NOT NULL UNIQUE, " +
+                    "learning_resource_link VARCHAR(255), " +
+                    "normalized_link VARCHAR(2048), " +
+                    "title VARCHAR(255), " +
+                    "title_key VARCHAR(255), " +
+                    "format_category VARCHAR(255), " +
+                    "sub_category VARCHAR(255), " +
+                    "description VARCHAR(255), " +
+                    "created_at TIMESTAMP, " +
+                    "modified_at TIMESTAMP, " +
+                    "like_count INTEGER NOT NULL DEFAULT 0, " +
+                    "contributor_id BIGINT NOT NULL REFERENCES contributor (id))");
+            statement.execute("CREATE INDEX ON resource_identity_bench (normalized_link)");
+            statement.execute("CREATE INDEX ON resource_identity_bench (title_key)");
+        }
+    }
+
+    private record Result(long millis, long statements) {
+        double rowsPerSecond() {
+            return ROWS * 1000.0 / Math.max(1, millis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows in %,d ms, %,.0f rows/s, %,d statements", ROWS, millis, rowsPerSecond(), statements);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package app.daos;
+
+import app.configs.TestDatabase;
+import app.dtos.resourcedtos.ResourceRowDTO;
+import app.entities.Contributor;
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset paging of the most liked feed (retrieveByLikesAfter) where most rows share a like_count, and many also share
+ * a created_at, so only the id tells them apart. Walking the pages must return every row once, in the feed's order.
+ * The like counts are far above anything other tests give, so these resources are the top of every feed.
+ */
+class ResourceDAOLikesPagingTest {
+    private static final int RESOURCES = 60;
+    private static final int BASE_LIKES = 1_000_000;
+    private static final int PAGE = 7;
+    private static ResourceDAO resourceDAO;
+    private static final List<Row> rows = new ArrayList<>();
+
+    private record Row(Long id, FormatCategory formatCategory, int likeCount, LocalDateTime createdAt) {
+    }
+
+    @BeforeAll
+    static void setUp() {
+        EntityManagerFactory emf = TestDatabase.getEntityManagerFactory();
+        resourceDAO = ResourceDAO.getInstance(emf);
+        Contributor contributor = TestDatabase.createContributor("likes-paging");
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < RESOURCES; i++) {
+            resources.add(Resource.builder()
+                    .learningResourceLink("https://example.com/likes-paging/" + i)
+                    .title("Likes paging resource " + i)
+                    .formatCategory(i % 2 == 0 ? FormatCategory.ARTICLE : FormatCategory.YOUTUBE)
+                    .subCategory(SubCategory.values()[0])
+                    .description("Paged by like count")
+                    .contributor(contributor)
+                    .build());
+        }
+        TestDatabase.withoutStdout(() -> resourceDAO.persistList(resources));
+
+        //like_count is maintained by the database, three like counts and two timestamps give long runs of ties
+        LocalDateTime earlier = LocalDateTime.of(2024, 1, 1, 12, 0);
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            for (int i = 0; i < RESOURCES; i++) {
+                Resource resource = resources.get(i);
+                Row row = new Row(resource.getId(), resource.getFormatCategory(), BASE_LIKES + i % 3, earlier.plusHours(i % 5 == 0 ? 1 : 0));
+                em.createNativeQuery("UPDATE resource SET like_count = ?1, created_at = ?2 WHERE id = ?3")
+                        .setParameter(1, row.likeCount())
+                        .setParameter(2, row.createdAt())
+                        .setParameter(3, row.id())
+                        .executeUpdate();
+                rows.add(row);
+            }
+            em.getTransaction().commit();
+        }
+    }
+
+    @Test
+    void likesThenIdPagesThroughTies() {
+        Comparator<Row> order = Comparator.comparing(Row::likeCount).thenComparing(Row::id).reversed();
+        assertEquals(expected(null, order), walk(null, false));
+        assertEquals(expected(FormatCategory.YOUTUBE, order), walk(FormatCategory.YOUTUBE, false));
+    }
+
+    @Test
+    void likesThenNewestPagesThroughTies() {
+        Comparator<Row> order = Comparator.comparing(Row::likeCount).thenComparing(Row::createdAt).thenComparing(Row::id).reversed();
+        assertEquals(expected(null, order), walk(null, true));
+        assertEquals(expected(FormatCategory.ARTICLE, order), walk(FormatCategory.ARTICLE, true));
+    }
+
+    private List<Long> expected(FormatCategory formatCategory, Comparator<Row> order) {
+        return rows.stream()
+                .filter(row -> formatCategory == null || row.formatCategory() == formatCategory)
+                .sorted(order)
+                .map(Row::id)
+                .toList();
+    }
+
+    //Follows the cursor from the last row of each page until every one of this test's resources has been seen
+    private List<Long> walk(FormatCategory formatCategory, boolean thenNewest) {
+        int wanted = (int) rows.stream().filter(row -> formatCategory == null || row.formatCategory() == formatCategory).count();
+        List<Long> ids = new ArrayList<>();
+        ResourceRowDTO last = null;
+        while (ids.size() < wanted) {
+            List<ResourceRowDTO> page = last == null
+                    ? resourceDAO.retrieveByLikesAfter(formatCategory, null, thenNewest, null, null, null, PAGE)
+                    : resourceDAO.retrieveByLikesAfter(formatCategory, null, thenNewest, last.likeCount(), last.createdAt(), last.id(), PAGE);
+            //Only the last page may be short, when nothing else in the database matches
+            assertTrue(page.size() >= Math.min(PAGE, wanted - ids.size()), "a page ended early after " + ids.size() + " rows");
+            page.forEach(row -> ids.add(row.id()));
+            last = page.get(page.size() - 1);
+        }
+        return ids.subList(0, wanted);
+    }
+}
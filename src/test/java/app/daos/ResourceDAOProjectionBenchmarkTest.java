@@ -0,0 +1,122 @@
+package app.daos;
+
+import app.configs.TestDatabase;
+import app.converters.ConvertToResourceDTO;
+import app.dtos.resourcedtos.ResourceRowDTO;
+import app.dtos.resourcedtos.SimpleResourceDTO;
+import app.entities.Contributor;
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The newest-first list (GET resources?cursor=...) loaded as managed Resource entities and converted, like before the
+ * ResourceRowDTO projections, against retrieveAllAfter as it is now. Both return the same SimpleResourceDTOs.
+ * Allocation is measured per thread with ThreadMXBean, everything runs on the calling thread, latency is the median.
+ * Tagged benchmark, so it only runs with mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class ResourceDAOProjectionBenchmarkTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceDAOProjectionBenchmarkTest.class);
+    private static final int CONTRIBUTORS = 20;
+    private static final int RESOURCES_PER_CONTRIBUTOR = 100;
+    private static final int WARMUP = 20;
+    private static final int MEASURED = 50;
+    private static EntityManagerFactory emf;
+    private static ResourceDAO resourceDAO;
+    private static final ConvertToResourceDTO convertToResourceDTO = new ConvertToResourceDTO();
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @BeforeAll
+    static void setUp() {
+        emf = TestDatabase.getEntityManagerFactory();
+        resourceDAO = ResourceDAO.getInstance(emf);
+        List<Resource> resources = new ArrayList<>();
+        for (int c = 0; c < CONTRIBUTORS; c++) {
+            Contributor contributor = TestDatabase.createContributor("projection-benchmark-" + c);
+            for (int i = 0; i < RESOURCES_PER_CONTRIBUTOR; i++) {
+                resources.add(Resource.builder()
+                        .learningResourceLink("https://example.com/projection/" + c + "/" + i)
+                        .title("Projection resource " + c + "-" + i)
+                        .formatCategory(FormatCategory.values()[i % FormatCategory.values().length])
+                        .subCategory(SubCategory.values()[i % SubCategory.values().length])
+                        .description("Loaded by the projection benchmark")
+                        .contributor(contributor)
+                        .build());
+            }
+        }
+        TestDatabase.withoutStdout(() -> resourceDAO.persistList(resources));
+    }
+
+    @Test
+    void projectionAllocatesLessThanEntities() {
+        for (int limit : new int[]{100, CONTRIBUTORS * RESOURCES_PER_CONTRIBUTOR}) {
+            Supplier<List<SimpleResourceDTO>> entities = () -> loadEntities(limit);
+            Supplier<List<SimpleResourceDTO>> projection = () -> resourceDAO.retrieveAllAfter(null, null, limit).stream()
+                    .map(ResourceRowDTO::toSimpleResourceDTO)
+                    .toList();
+            assertEquals(entities.get(), projection.get());
+
+            Measurement entityLoad = measure(entities);
+            Measurement rowProjection = measure(projection);
+            LOGGER.info("{} rows, entities: {}, projection: {}", limit, entityLoad, rowProjection);
+
+            assertTrue(rowProjection.bytes() < entityLoad.bytes(),
+                    limit + " rows, projection: " + rowProjection + ", entities: " + entityLoad);
+        }
+    }
+
+    //The query retrieveAllAfter ran before it selected ResourceRowDTOs, the contributor is loaded through its EAGER mapping
+    private List<SimpleResourceDTO> loadEntities(int limit) {
+        try (EntityManager em = emf.createEntityManager()) {
+            return em.createQuery("SELECT r FROM Resource r ORDER BY r.createdAt DESC, r.id DESC", Resource.class)
+                    .setMaxResults(limit)
+                    .getResultList().stream()
+                    .map(convertToResourceDTO::convert)
+                    .toList();
+        }
+    }
+
+    //Bytes allocated per call on average, and the median latency, after a warmup
+    private Measurement measure(Supplier<List<SimpleResourceDTO>> load) {
+        return TestDatabase.withoutStdout(() -> {
+            for (int i = 0; i < WARMUP; i++) {
+                load.get();
+            }
+            long[] nanos = new long[MEASURED];
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MEASURED; i++) {
+                long start = System.nanoTime();
+                load.get();
+                nanos[i] = System.nanoTime() - start;
+            }
+            long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            Arrays.sort(nanos);
+            return new Measurement(allocated / MEASURED, nanos[MEASURED / 2] / 1_000_000.0);
+        });
+    }
+
+    private record Measurement(long bytes, double medianMillis) {
+        @Override
+        public String toString() {
+            return String.format("%,d bytes, %.2f ms median", bytes, medianMillis);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package app.indexes;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoLikeIndexTest {
+    private CoLikeIndex index;
+    private final Map<String, Set<Long>> likes = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        index = new CoLikeIndex();
+        likes.clear();
+    }
+
+    @Test
+    void mostCoLikedFirstTiesNewestFirst() {
+        //Resource 1 is liked together with 2 by three users, with 3 and 4 by one user each, with 5 by two
+        like("a", 1, 2, 5);
+        like("b", 1, 2, 5);
+        like("c", 1, 2, 3);
+        like("d", 1, 4);
+
+        assertEquals(List.of(2L, 5L, 4L, 3L), index.related(1L, 10));
+        assertEquals(List.of(2L, 5L), index.related(1L, 2));
+        assertEquals(List.of(1L, 5L, 3L), index.related(2L, 10));
+        assertTrue(index.related(1L, 0).isEmpty());
+        assertTrue(index.related(99L, 10).isEmpty());
+    }
+
+    @Test
+    void unlikeAndRemoveTakeTheirPairsBack() {
+        like("a", 1, 2, 3);
+        like("b", 1, 3);
+
+        index.unliked("a", 3L);
+        assertEquals(List.of(3L, 2L), index.related(1L, 10));
+        assertEquals(List.of(1L), index.related(3L, 10));
+
+        index.remove(1L);
+        assertTrue(index.related(1L, 10).isEmpty());
+        assertTrue(index.related(3L, 10).isEmpty());
+        assertTrue(index.related(2L, 10).isEmpty());
+
+        //A like that was never given, or given twice, changes nothing
+        index.unliked("a", 3L);
+        index.liked("b", 3L);
+        like("b", 2);
+        assertEquals(List.of(3L), index.related(2L, 10));
+    }
+
+    @Test
+    void randomLikesMatchBruteForce() {
+        Random random = new Random(3);
+        for (int step = 0; step < 5_000; step++) {
+            String user = "user-" + random.nextInt(30);
+            long id = 1 + random.nextInt(40);
+            Set<Long> liked = likes.computeIfAbsent(user, name -> new HashSet<>());
+            if (liked.remove(id)) {
+                index.unliked(user, id);
+            } else {
+                liked.add(id);
+                index.liked(user, id);
+            }
+            if (step % 250 == 0) {
+                assertRelatedMatches(40);
+            }
+        }
+        assertRelatedMatches(40);
+    }
+
+    @Test
+    void likesPastTheCapAreNotPaired() {
+        long cap = CoLikeIndex.MAX_PAIRED_LIKES;
+        for (long id = 1; id <= cap + 10; id++) {
+            index.liked("heavy", id);
+        }
+        assertEquals(cap - 1, index.related(1L, Integer.MAX_VALUE).size());
+        assertTrue(index.related(cap + 1, 10).isEmpty());
+
+        //Unliking an unpaired like changes no count, unliking a paired one frees a place for the next like
+        index.unliked("heavy", cap + 1);
+        assertEquals(cap - 1, index.related(1L, Integer.MAX_VALUE).size());
+        index.unliked("heavy", 2L);
+        assertEquals(cap - 2, index.related(1L, Integer.MAX_VALUE).size());
+        index.liked("heavy", cap + 100);
+        assertEquals(cap - 1, index.related(cap + 100, Integer.MAX_VALUE).size());
+        assertEquals(cap - 1, index.related(1L, Integer.MAX_VALUE).size());
+    }
+
+    private void like(String user, long... ids) {
+        for (long id : ids) {
+            likes.computeIfAbsent(user, name -> new HashSet<>()).add(id);
+            index.liked(user, id);
+        }
+    }
+
+    private void assertRelatedMatches(int resources) {
+        for (long id = 1; id <= resources; id++) {
+            assertEquals(expected(id), index.related(id, Integer.MAX_VALUE), "resource " + id);
+        }
+    }
+
+    //Counts every user that liked both, most first, ties newest (highest id) first
+    private List<Long> expected(long resourceId) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Set<Long> liked : likes.values()) {
+            if (liked.contains(resourceId)) {
+                liked.stream().filter(other -> other != resourceId).forEach(other -> counts.merge(other, 1, Integer::sum));
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
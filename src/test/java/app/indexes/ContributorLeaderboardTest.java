@@ -0,0 +1,106 @@
+package app.indexes;
+
+import app.dtos.contributordtos.LeaderboardEntryDTO;
+import app.entities.Contributor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContributorLeaderboardTest {
+    private ContributorLeaderboard leaderboard;
+    private final Map<Long, Integer> contributions = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new ContributorLeaderboard();
+        contributions.clear();
+    }
+
+    @Test
+    void tiedContributionsShareARank() {
+        put(1, 5);
+        put(2, 7);
+        put(3, 5);
+        put(4, 1);
+
+        assertEquals(List.of(
+                new LeaderboardEntryDTO(1, "gh-2", "screen-2", 7),
+                new LeaderboardEntryDTO(2, "gh-1", "screen-1", 5),
+                new LeaderboardEntryDTO(2, "gh-3", "screen-3", 5),
+                new LeaderboardEntryDTO(4, "gh-4", "screen-4", 1)), leaderboard.range(0, 10));
+        //A page that starts inside a tie still gets the shared rank
+        assertEquals(List.of(new LeaderboardEntryDTO(2, "gh-3", "screen-3", 5)), leaderboard.range(2, 1));
+        assertEquals(2, leaderboard.rankOf("SCREEN-3").rank());
+        assertEquals(2, leaderboard.rankOf(" gh-1 ").rank());
+    }
+
+    @Test
+    void randomPutsAndRemovesMatchSortedList() {
+        Random random = new Random(5);
+        for (int step = 0; step < 10_000; step++) {
+            long id = 1 + random.nextInt(200);
+            if (contributions.containsKey(id) && random.nextInt(4) == 0) {
+                leaderboard.remove(id);
+                contributions.remove(id);
+            } else {
+                //Few distinct values so most contributors are tied with others
+                put(id, random.nextInt(8));
+            }
+            if (step % 200 == 0) {
+                assertMatchesSortedList();
+            }
+        }
+        assertMatchesSortedList();
+    }
+
+    @Test
+    void renamedOrRemovedContributorIsNotFoundByItsOldName() {
+        put(1, 3);
+        leaderboard.put(Contributor.builder().id(1L).githubProfile("gh-1").screenName("renamed").contributions(4).build());
+        assertNull(leaderboard.rankOf("screen-1"));
+        assertEquals(4, leaderboard.rankOf("renamed").contributions());
+
+        leaderboard.remove(1L);
+        assertNull(leaderboard.rankOf("gh-1"));
+        assertEquals(0, leaderboard.size());
+        assertEquals(List.of(), leaderboard.range(0, 10));
+    }
+
+    private void put(long id, int count) {
+        contributions.put(id, count);
+        leaderboard.put(Contributor.builder().id(id).githubProfile("gh-" + id).screenName("screen-" + id).contributions(count).build());
+    }
+
+    private void assertMatchesSortedList() {
+        //Most contributions first, then lowest id, a rank is one more than the number of contributors with more
+        List<Long> sorted = contributions.keySet().stream()
+                .sorted(Comparator.comparing((Long id) -> contributions.get(id)).reversed().thenComparing(id -> id))
+                .toList();
+        List<LeaderboardEntryDTO> expected = new ArrayList<>();
+        for (long id : sorted) {
+            int count = contributions.get(id);
+            int rank = 1 + (int) contributions.values().stream().filter(other -> other > count).count();
+            expected.add(new LeaderboardEntryDTO(rank, "gh-" + id, "screen-" + id, count));
+        }
+
+        assertEquals(expected.size(), leaderboard.size());
+        assertEquals(expected, leaderboard.range(0, expected.size() + 5));
+        for (int offset = 0; offset <= expected.size(); offset += 7) {
+            int end = Math.min(expected.size(), offset + 10);
+            assertEquals(expected.subList(offset, end), leaderboard.range(offset, 10), "offset " + offset);
+            assertEquals(sorted.subList(offset, end), leaderboard.idsInRange(offset, 10), "offset " + offset);
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), leaderboard.rankOf("gh-" + sorted.get(i)));
+        }
+    }
+}
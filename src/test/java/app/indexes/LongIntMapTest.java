@@ -0,0 +1,134 @@
+package app.indexes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongIntMapTest {
+    private final LongIntMap map = new LongIntMap();
+    private final Map<Long, Integer> reference = new HashMap<>();
+
+    @Test
+    void randomAddsAndRemovesMatchHashMap() {
+        Random random = new Random(7);
+        //A small key space keeps the map growing and shrinking through every resize
+        for (int step = 0; step < 50_000; step++) {
+            long key = random.nextInt(300) - 150;
+            if (random.nextInt(10) < 3) {
+                remove(key);
+            } else {
+                add(key, random.nextInt(5) - 2);
+            }
+            if (step % 500 == 0) {
+                assertMatches();
+            }
+        }
+        assertMatches();
+    }
+
+    //Every key lands in the same home slot for any capacity up to 1024, so each delete has a long run to shift back
+    @Test
+    void collidingKeysSurviveDeletesAndResizes() {
+        List<Long> colliding = new ArrayList<>();
+        for (long key = 0; colliding.size() < 200; key++) {
+            if ((hash(key) & 1023) == 7) {
+                colliding.add(key);
+            }
+        }
+        //The neighbours of the home slot take part in the runs as well
+        List<Long> keys = new ArrayList<>(colliding);
+        for (long key = 0; keys.size() < 300; key++) {
+            long home = hash(key) & 1023;
+            if (home == 6 || home == 8) {
+                keys.add(key);
+            }
+        }
+
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            for (long key : keys) {
+                add(key, 1 + random.nextInt(3));
+            }
+            assertMatches();
+            for (long key : keys) {
+                if (random.nextBoolean()) {
+                    remove(key);
+                } else {
+                    //Takes the value down to 0 through add, which removes the key the same way
+                    add(key, -reference.getOrDefault(key, 0));
+                }
+                if (random.nextInt(20) == 0) {
+                    assertMatches();
+                }
+            }
+            assertMatches();
+            assertEquals(0, map.size());
+        }
+    }
+
+    @Test
+    void zeroValuesAreNotKept() {
+        assertEquals(0, map.add(5, 0));
+        assertEquals(0, map.size());
+        assertEquals(3, map.add(5, 3));
+        assertEquals(0, map.add(5, -3));
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(5));
+        assertEquals(0, map.remove(5));
+    }
+
+    @Test
+    void minValueIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> map.add(Long.MIN_VALUE, 1));
+        assertEquals(0, map.get(Long.MIN_VALUE));
+    }
+
+    private void add(long key, int delta) {
+        int expected = reference.getOrDefault(key, 0) + delta;
+        if (expected == 0) {
+            reference.remove(key);
+        } else {
+            reference.put(key, expected);
+        }
+        assertEquals(expected, map.add(key, delta));
+    }
+
+    private void remove(long key) {
+        Integer expected = reference.remove(key);
+        assertEquals(expected == null ? 0 : expected, map.remove(key));
+    }
+
+    private void assertMatches() {
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()), "key " + entry.getKey());
+        }
+        Map<Long, Integer> walked = new HashMap<>();
+        map.forEach(walked::put);
+        assertEquals(reference, walked);
+
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(reference.keySet().stream().mapToLong(Long::longValue).sorted().toArray(), keys);
+    }
+
+    //The finalizer LongIntMap places keys with
+    private static long hash(long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,145 @@
+package app.indexes;
+
+import app.dtos.SuggestionDTO;
+import app.entities.Resource;
+import app.enums.SuggestionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+    private SuggestionTrie trie;
+    private final Map<Long, Resource> resources = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        trie = new SuggestionTrie(null);
+        resources.clear();
+    }
+
+    @Test
+    void insertSplitsAnEdgeAndDeleteMergesItBack() {
+        //Keys "java streams" and "streams", each its own edge below the root
+        put(1, "Java Streams", 3);
+        assertEquals(3, trie.nodeCount());
+
+        //"javascript" leaves "java streams" after "java": a "java" node with " streams" and "script" below it
+        put(2, "JavaScript", 5);
+        assertEquals(5, trie.nodeCount());
+        assertEquals(List.of("JavaScript", "Java Streams"), texts("jav"));
+        assertEquals(List.of("JavaScript", "Java Streams"), texts("java"));
+        assertEquals(List.of("Java Streams"), texts("java s"));
+        assertEquals(List.of("JavaScript"), texts("javas"));
+        assertEquals(List.of("Java Streams"), texts("str"));
+
+        //"java" is left with one child and no completion of its own, so it merges with " streams" again
+        trie.remove(2L);
+        assertEquals(3, trie.nodeCount());
+        assertEquals(List.of("Java Streams"), texts("jav"));
+        assertEquals(List.of("Java Streams"), texts("java s"));
+        assertTrue(texts("javas").isEmpty());
+
+        trie.remove(1L);
+        assertEquals(1, trie.nodeCount());
+        assertTrue(texts("j").isEmpty());
+    }
+
+    //A key that ends inside an existing edge splits it and keeps a completion on the middle node
+    @Test
+    void keyEndingInsideAnEdgeKeepsItsNode() {
+        put(1, "Kotlin", 1);
+        put(2, "Kot", 2);
+        assertEquals(3, trie.nodeCount());
+        assertEquals(List.of("Kot", "Kotlin"), texts("ko"));
+
+        trie.remove(1L);
+        assertEquals(2, trie.nodeCount());
+        assertEquals(List.of("Kot"), texts("kot"));
+        assertTrue(texts("kotl").isEmpty());
+    }
+
+    @Test
+    void topFollowsRemovalsAndLikes() {
+        for (long id = 1; id <= SuggestionTrie.TOP_K + 5; id++) {
+            put(id, "Topic " + id, (int) id);
+        }
+        assertEquals(expected("topic"), trie.suggest("topic", SuggestionTrie.TOP_K));
+
+        //The best ones leave, those waiting below the cut move up
+        for (long id = SuggestionTrie.TOP_K + 5; id > SuggestionTrie.TOP_K; id--) {
+            remove(id);
+        }
+        assertEquals(expected("topic"), trie.suggest("topic", SuggestionTrie.TOP_K));
+        assertEquals(SuggestionTrie.TOP_K, trie.suggest("t", SuggestionTrie.TOP_K).size());
+
+        trie.flushed(1, 100);
+        resources.get(1L).setLikeCount(101);
+        assertEquals("Topic 1", trie.suggest("topic", 1).get(0).text());
+        assertEquals(expected("topic"), trie.suggest("topic", SuggestionTrie.TOP_K));
+    }
+
+    //Single word titles over two letters give one key each and plenty of splits and merges
+    @Test
+    void randomPutsAndRemovesMatchBruteForce() {
+        Random random = new Random(9);
+        for (int step = 0; step < 3_000; step++) {
+            long id = 1 + random.nextInt(60);
+            if (resources.containsKey(id) && random.nextInt(3) == 0) {
+                remove(id);
+            } else {
+                StringBuilder title = new StringBuilder();
+                for (int i = 0, length = 1 + random.nextInt(6); i < length; i++) {
+                    title.append(random.nextBoolean() ? 'a' : 'b');
+                }
+                put(id, title.toString(), random.nextInt(10));
+            }
+            if (step % 100 == 0) {
+                assertMatchesBruteForce();
+            }
+        }
+        assertMatchesBruteForce();
+        resources.keySet().stream().toList().forEach(this::remove);
+        assertEquals(1, trie.nodeCount());
+    }
+
+    private void put(long id, String title, int likes) {
+        Resource resource = Resource.builder().id(id).learningId((int) id).title(title).likeCount(likes).build();
+        resources.put(id, resource);
+        trie.put(resource);
+    }
+
+    private void remove(long id) {
+        resources.remove(id);
+        trie.remove(id);
+    }
+
+    private List<String> texts(String prefix) {
+        return trie.suggest(prefix, SuggestionTrie.TOP_K).stream().map(SuggestionDTO::text).toList();
+    }
+
+    private void assertMatchesBruteForce() {
+        for (String prefix : new String[]{"a", "b", "aa", "ab", "ba", "bb", "aab", "aba", "bab", "abba", "bbbbb", "aaaaaa"}) {
+            assertEquals(expected(prefix), trie.suggest(prefix, SuggestionTrie.TOP_K), prefix);
+        }
+    }
+
+    //Most likes first, then title and id, every title word can start a match
+    private List<SuggestionDTO> expected(String prefix) {
+        return resources.values().stream()
+                .filter(resource -> (" " + resource.getTitle().toLowerCase()).contains(" " + prefix))
+                .sorted(Comparator.comparing(Resource::getLikeCount).reversed()
+                        .thenComparing(Resource::getTitle)
+                        .thenComparing(Resource::getId))
+                .limit(SuggestionTrie.TOP_K)
+                .map(resource -> new SuggestionDTO(SuggestionType.RESOURCE, resource.getTitle(), resource.getLearningId(), resource.getLikeCount()))
+                .toList();
+    }
+}
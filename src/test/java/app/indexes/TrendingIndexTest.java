@@ -0,0 +1,157 @@
+package app.indexes;
+
+import app.entities.Resource;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendingIndexTest {
+    private static final FormatCategory[] FORMATS = {FormatCategory.PDF, FormatCategory.ARTICLE, FormatCategory.PODCAST};
+    private static final SubCategory[] SUBS = {SubCategory.PROGRAMMING, SubCategory.DATA_SCIENCE};
+
+    //Likes given at the landmark weigh exactly 1, so a score is the like count and ties are real ties
+    private LocalDateTime landmark;
+    private TrendingIndex index;
+    private final Map<Long, Integer> likes = new HashMap<>();
+    private final Map<Long, Resource> resources = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        landmark = LocalDateTime.now();
+        index = new TrendingIndex(landmark);
+        likes.clear();
+        resources.clear();
+    }
+
+    @Test
+    void likeAndUnlikeChurnAroundTopK() {
+        Random random = new Random(42);
+        int resourceCount = TrendingIndex.TOP_K * 3;
+        for (long id = 1; id <= resourceCount; id++) {
+            put(id, FORMATS[(int) (id % FORMATS.length)], SUBS[(int) (id % SUBS.length)]);
+        }
+
+        for (int step = 0; step < 20_000; step++) {
+            long id = 1 + random.nextInt(resourceCount);
+            //Slightly more unlikes than likes keeps many resources hovering around zero and around the cut
+            if (likes.getOrDefault(id, 0) > 0 && random.nextInt(100) < 52) {
+                unlike(id);
+            } else {
+                like(id);
+            }
+            if (step % 100 == 0) {
+                assertRankingsMatch();
+            }
+        }
+        assertRankingsMatch();
+    }
+
+    @Test
+    void resourceMovesBetweenCategories() {
+        //PDF holds one more liked resource than fits, the weakest one (id 1) waits just outside
+        for (long id = 1; id <= TrendingIndex.TOP_K + 1; id++) {
+            put(id, FormatCategory.PDF, SubCategory.PROGRAMMING);
+            for (int i = 0; i < id; i++) {
+                like(id);
+            }
+        }
+        assertFalse(index.trending(FormatCategory.PDF, null, TrendingIndex.TOP_K).contains(1L));
+
+        long moved = TrendingIndex.TOP_K + 1;
+        put(moved, FormatCategory.ARTICLE, SubCategory.PROGRAMMING);
+
+        assertEquals(List.of(moved), index.trending(FormatCategory.ARTICLE, null, TrendingIndex.TOP_K));
+        List<Long> pdf = index.trending(FormatCategory.PDF, null, TrendingIndex.TOP_K);
+        assertFalse(pdf.contains(moved));
+        assertTrue(pdf.contains(1L), "the resource outside the ranking must take the free place");
+        assertEquals(moved, index.trending(null, SubCategory.PROGRAMMING, 1).get(0));
+        assertRankingsMatch();
+    }
+
+    @Test
+    void removedResourceLeavesEveryRanking() {
+        for (long id = 1; id <= TrendingIndex.TOP_K + 5; id++) {
+            put(id, FormatCategory.PODCAST, SubCategory.DATA_SCIENCE);
+            like(id);
+        }
+        index.remove(3L);
+        resources.remove(3L);
+        likes.remove(3L);
+
+        assertFalse(index.trending(null, null, TrendingIndex.TOP_K).contains(3L));
+        assertFalse(index.trending(FormatCategory.PODCAST, null, TrendingIndex.TOP_K).contains(3L));
+        assertRankingsMatch();
+    }
+
+    //The first like after more than MAX_EXPONENT tau rescales every score to a landmark of now
+    @Test
+    void unlikeAfterLandmarkMoveTakesBackTheSameWeight() {
+        LocalDateTime oldLandmark = LocalDateTime.now().minus(Duration.ofDays(100));
+        index = new TrendingIndex(oldLandmark);
+        LocalDateTime likedAt = LocalDateTime.now().minusHours(1);
+
+        index.liked(1L, likedAt);
+        index.liked(2L, likedAt);
+        index.liked(2L, likedAt.plusMinutes(1));
+        assertEquals(List.of(2L, 1L), index.trending(null, null, 10));
+
+        index.unliked(1L, likedAt);
+        assertEquals(List.of(2L), index.trending(null, null, 10));
+
+        index.unliked(2L, likedAt);
+        index.unliked(2L, likedAt.plusMinutes(1));
+        assertTrue(index.trending(null, null, 10).isEmpty(), "what floating point leaves behind must count as no score");
+    }
+
+    private void put(long id, FormatCategory formatCategory, SubCategory subCategory) {
+        Resource resource = Resource.builder().id(id).formatCategory(formatCategory).subCategory(subCategory).build();
+        resources.put(id, resource);
+        index.put(resource);
+    }
+
+    private void like(long id) {
+        likes.merge(id, 1, Integer::sum);
+        index.liked(id, landmark);
+    }
+
+    private void unlike(long id) {
+        likes.merge(id, -1, Integer::sum);
+        index.unliked(id, landmark);
+    }
+
+    private void assertRankingsMatch() {
+        assertEquals(expected(null, null), index.trending(null, null, TrendingIndex.TOP_K));
+        for (FormatCategory format : FORMATS) {
+            assertEquals(expected(format, null), index.trending(format, null, TrendingIndex.TOP_K), format.name());
+        }
+        for (SubCategory sub : SUBS) {
+            assertEquals(expected(null, sub), index.trending(null, sub, TrendingIndex.TOP_K), sub.name());
+        }
+    }
+
+    //Most likes first, ties newest (highest id) first, resources without likes are not trending
+    private List<Long> expected(FormatCategory formatCategory, SubCategory subCategory) {
+        return likes.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .filter(entry -> formatCategory == null || resources.get(entry.getKey()).getFormatCategory() == formatCategory)
+                .filter(entry -> subCategory == null || resources.get(entry.getKey()).getSubCategory() == subCategory)
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .limit(TrendingIndex.TOP_K)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -0,0 +1,125 @@
+package app.services;
+
+import app.configs.TestDatabase;
+import app.daos.ContributorDAO;
+import app.dtos.contributordtos.ContributorNameDTO;
+import app.dtos.contributordtos.ProfileDTO;
+import app.dtos.resourcedtos.LearningIdDTO;
+import app.dtos.resourcedtos.SimpleResourceDTO;
+import app.enums.FormatCategory;
+import app.enums.SubCategory;
+import app.exceptions.ApiException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+//The contributions counter is adjusted in the same transaction as the insert/delete, parallel writers must not lose updates
+class ResourceServiceConcurrencyTest {
+    //Stays below Hibernate's default connection pool size of 20
+    private static final int THREADS = 16;
+    private static ResourceService resourceService;
+    private static ContributorService contributorService;
+    private static ContributorDAO contributorDAO;
+    private static ExecutorService pool;
+
+    @BeforeAll
+    static void setUp() {
+        contributorDAO = ContributorDAO.getInstance(TestDatabase.getEntityManagerFactory());
+        resourceService = new ResourceService();
+        contributorService = new ContributorService();
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void contributionsFollowParallelCreatesAndDeletes() throws InterruptedException {
+        Long contributorId = TestDatabase.createContributor("concurrent-contributor").getId();
+
+        List<SimpleResourceDTO> created = runInParallel(i -> resourceService.createResource(newResource("concurrent", i), contributorId));
+        assertEquals(THREADS, created.size());
+        assertEquals(THREADS, contributorDAO.findById(contributorId).getContributions());
+
+        List<Boolean> deleted = runInParallel(i ->
+                resourceService.deleteResource(new LearningIdDTO(created.get(i).learningId()), false, contributorId));
+        assertTrue(deleted.stream().allMatch(Boolean::booleanValue));
+        assertEquals(0, contributorDAO.findById(contributorId).getContributions());
+    }
+
+    //Every create raises the contributor's version, a profile update that read it before must be retried, not lost as a 500
+    @Test
+    void profileUpdatesRaceCreates() throws InterruptedException {
+        String name = "profile-race";
+        Long contributorId = TestDatabase.createContributor(name).getId();
+
+        //Every fourth call changes the screen name, the GitHub handle stays so the contributor is still found by name
+        List<Object> results = runInParallel(i -> {
+            if (i % 4 != 0) {
+                return resourceService.createResource(newResource("race", i), contributorId);
+            }
+            try {
+                return contributorService.updateContributor(new ContributorNameDTO(name),
+                        new ProfileDTO(name, "racer-" + i, null, null), contributorId, false);
+            } catch (ApiException e) {
+                //A conflict that outlasts the retries is reported as 409
+                assertEquals(409, e.getCode());
+                return e;
+            }
+        });
+
+        long creates = results.stream().filter(SimpleResourceDTO.class::isInstance).count();
+        assertEquals(THREADS - THREADS / 4, creates);
+        assertEquals((int) creates, contributorDAO.findById(contributorId).getContributions());
+    }
+
+    private SimpleResourceDTO newResource(String prefix, int i) {
+        return new SimpleResourceDTO(null, "https://example.com/" + prefix + "/" + i, "Concurrent resource " + i,
+                FormatCategory.ARTICLE, SubCategory.values()[0], "Created in parallel", null, null, null, null, null);
+    }
+
+    //Releases every call at the same moment. Any exception, an OptimisticLockException or DatabaseException included, fails the test
+    private <T> List<T> runInParallel(IntFunction<T> call) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int index = i;
+            Callable<T> task = () -> {
+                start.await();
+                return call.apply(index);
+            };
+            futures.add(pool.submit(task));
+        }
+        start.countDown();
+
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            } catch (ExecutionException e) {
+                fail("A parallel call failed: " + e.getCause(), e.getCause());
+            } catch (TimeoutException e) {
+                fail("A parallel call did not finish within 60 seconds");
+            }
+        }
+        return results;
+    }
+}